@@ -0,0 +1,24 @@
+package com.dmdev.admission;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+
+@Value
+@Builder
+public class AdmissionConfig {
+    @Builder.Default
+    int initialLimit = 20;
+    @Builder.Default
+    int minLimit = 1;
+    @Builder.Default
+    int maxLimit = 200;
+    /**
+     * Calls slower than this are treated like failures and shrink the limit.
+     */
+    @Builder.Default
+    Duration latencyThreshold = Duration.ofMillis(250);
+    @Builder.Default
+    double backoffRatio = 0.9;
+}
@@ -0,0 +1,100 @@
+package com.dmdev.admission;
+
+import com.dmdev.exception.CircuitBreakerOpenException;
+import com.dmdev.exception.DeadlineExceededException;
+import com.dmdev.exception.OverloadException;
+
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Adaptive concurrency limit (AIMD) in front of service operations. Every call slower than the latency threshold
+ * or failing with a {@link SQLException}, a {@link DeadlineExceededException} or a {@link CircuitBreakerOpenException}
+ * multiplies the limit by the backoff ratio, every other fast call made while at least half of the limit is in use
+ * raises it by one. A rejection by the open breaker is fast but still means the database is failing. Calls over the share of the limit granted to their {@link Operation}
+ * are rejected right away with an {@link OverloadException}.
+ */
+public class AdmissionController {
+
+    private final AdmissionConfig config;
+    private final long latencyThresholdNanos;
+    private final Map<Operation, AtomicLong> rejections = new EnumMap<>(Operation.class);
+    private double limit;
+    private int inFlight;
+
+    public AdmissionController(AdmissionConfig config) {
+        this.config = config;
+        this.latencyThresholdNanos = config.getLatencyThreshold().toNanos();
+        this.limit = config.getInitialLimit();
+        for (Operation operation : Operation.values()) {
+            rejections.put(operation, new AtomicLong());
+        }
+    }
+
+    public static AdmissionController unlimited() {
+        return new AdmissionController(AdmissionConfig.builder()
+                .initialLimit(Integer.MAX_VALUE)
+                .minLimit(Integer.MAX_VALUE)
+                .maxLimit(Integer.MAX_VALUE)
+                .build());
+    }
+
+    public void execute(Operation operation, Runnable action) {
+        execute(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public <T> T execute(Operation operation, Supplier<T> action) {
+        acquire(operation);
+        long start = System.nanoTime();
+        boolean dropped = false;
+        try {
+            return action.get();
+        } catch (Throwable e) {
+            dropped = isCongestion(e);
+            throw e;
+        } finally {
+            release(dropped || System.nanoTime() - start > latencyThresholdNanos);
+        }
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public long getRejectedCount(Operation operation) {
+        return rejections.get(operation).get();
+    }
+
+    private synchronized void acquire(Operation operation) {
+        int allowed = Math.max(1, (int) (limit * operation.getLimitShare()));
+        if (inFlight >= allowed) {
+            rejections.get(operation).incrementAndGet();
+            throw new OverloadException(String.format("%s rejected: %d in flight, limit %d", operation, inFlight, allowed));
+        }
+        inFlight++;
+    }
+
+    private synchronized void release(boolean dropped) {
+        if (dropped) {
+            limit = Math.max(config.getMinLimit(), limit * config.getBackoffRatio());
+        } else if (inFlight * 2 >= limit) {
+            limit = Math.min(config.getMaxLimit(), limit + 1);
+        }
+        inFlight--;
+    }
+
+    private static boolean isCongestion(Throwable throwable) {
+        return throwable instanceof SQLException || throwable.getCause() instanceof SQLException
+                || throwable instanceof DeadlineExceededException || throwable instanceof CircuitBreakerOpenException;
+    }
+}
@@ -0,0 +1,20 @@
+package com.dmdev.admission;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Service operations with the share of the concurrency limit they may use.
+ * Lower shares are shed first when the limit shrinks: reads go last, writes before them, and background
+ * expiration first.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum Operation {
+    READ(1.0),
+    UPSERT(0.9),
+    CANCEL(0.8),
+    EXPIRE(0.5);
+
+    private final double limitShare;
+}
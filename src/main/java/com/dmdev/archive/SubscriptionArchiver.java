@@ -0,0 +1,118 @@
+package com.dmdev.archive;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.entity.Subscription;
+import com.dmdev.service.SubscriptionListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves expired and canceled subscriptions out of the hot {@code subscription} table once their expiration date is
+ * older than {@code retention}. Every batch of {@code batchSize} rows is its own transaction and batches are
+ * separated by {@code pause}, so a large backlog is drained without holding locks or saturating the database.
+ * Listeners {@link #addListener added} here, like the change feed and the cache, are told of every archived
+ * subscription once its batch has been committed.
+ */
+public class SubscriptionArchiver implements AutoCloseable {
+
+    private static final System.Logger LOGGER = System.getLogger(SubscriptionArchiver.class.getName());
+
+    private final SubscriptionDao subscriptionDao;
+    private final Clock clock;
+    private final Duration retention;
+    private final int batchSize;
+    private final Duration pause;
+    private final List<SubscriptionListener> listeners = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService executor;
+
+    public SubscriptionArchiver(SubscriptionDao subscriptionDao,
+                                Clock clock,
+                                Duration retention,
+                                int batchSize,
+                                Duration pause) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.subscriptionDao = subscriptionDao;
+        this.clock = clock;
+        this.retention = retention;
+        this.batchSize = batchSize;
+        this.pause = pause;
+    }
+
+    public void addListener(SubscriptionListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Runs {@link #archive()} every {@code interval} in a background thread.
+     */
+    public synchronized void start(Duration interval) {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "subscription-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::runSafely, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Archives everything that is due in batches and returns how many subscriptions were moved.
+     * Stops early, keeping what was already moved, if the thread is interrupted.
+     */
+    public int archive() {
+        var expiredBefore = clock.instant().minus(retention);
+        int total = 0;
+        while (true) {
+            var archived = subscriptionDao.archive(expiredBefore, batchSize, clock.instant());
+            for (Subscription subscription : archived) {
+                for (SubscriptionListener listener : listeners) {
+                    listener.onArchive(subscription);
+                }
+            }
+            int moved = archived.size();
+            total += moved;
+            if (moved < batchSize || !sleep(pause)) {
+                return total;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private void runSafely() {
+        try {
+            int archived = archive();
+            if (archived > 0) {
+                LOGGER.log(System.Logger.Level.INFO, "Archived {0} subscriptions", archived);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.log(System.Logger.Level.WARNING, "Failed to archive subscriptions", e);
+        }
+    }
+
+    private static boolean sleep(Duration pause) {
+        try {
+            Thread.sleep(pause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.dmdev.cache;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.exception.SnapshotCorruptedException;
+import com.dmdev.feed.ChangeFeedLog;
+import com.dmdev.service.SubscriptionListener;
+import com.dmdev.snapshot.SubscriptionSnapshot;
+import com.dmdev.snapshot.SubscriptionSnapshotFile;
+import lombok.RequiredArgsConstructor;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory copy of every subscription, kept current as a {@link SubscriptionListener}.
+ * After a restart {@link #restore} loads the last {@link SubscriptionSnapshotFile snapshot} and re-reads from the
+ * database only the subscriptions the change feed reports as changed since, falling back to a full load when there
+ * is no usable snapshot or the feed no longer reaches back to it.
+ * Register the change feed before the cache, so every change the cache sees is already in the feed; register both with
+ * {@link com.dmdev.archive.SubscriptionArchiver} too, so archived subscriptions are dropped.
+ */
+@RequiredArgsConstructor
+public class SubscriptionCache implements SubscriptionListener {
+
+    private static final System.Logger LOGGER = System.getLogger(SubscriptionCache.class.getName());
+    private static final int CATCH_UP_BATCH = 1000;
+
+    private final SubscriptionDao subscriptionDao;
+    private final Clock clock;
+    private final Map<Integer, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<Integer>> idsByUserId = new ConcurrentHashMap<>();
+
+    public Optional<Subscription> findById(Integer id) {
+        return Optional.ofNullable(subscriptions.get(id)).map(Subscription::copy);
+    }
+
+    public List<Subscription> findByUserId(Integer userId) {
+        return idsByUserId.getOrDefault(userId, Set.of()).stream()
+                .map(subscriptions::get)
+                .filter(Objects::nonNull)
+                .map(Subscription::copy)
+                .toList();
+    }
+
+    public int size() {
+        return subscriptions.size();
+    }
+
+    @Override
+    public void onChange(Status previousStatus, Subscription subscription) {
+        put(subscription.copy());
+    }
+
+    @Override
+    public void onArchive(Subscription subscription) {
+        remove(subscription.getId());
+    }
+
+    /**
+     * Writes the current content together with the change feed position it is consistent with.
+     * Changes racing with the copy are in the feed after that position and get re-read on restore.
+     */
+    public void writeSnapshot(Path path, ChangeFeedLog changeFeed) {
+        long feedOffset = changeFeed.getEndOffset();
+        var content = subscriptions.values().stream().map(Subscription::copy).toList();
+        SubscriptionSnapshotFile.write(path, new SubscriptionSnapshot(feedOffset, clock.instant(), content));
+    }
+
+    /**
+     * Replaces the content with the snapshot plus the changes recorded after it, and returns whether the snapshot
+     * could be used.
+     */
+    public boolean restore(Path snapshotPath, ChangeFeedLog changeFeed) {
+        long start = System.nanoTime();
+        clear();
+        if (Files.exists(snapshotPath)) {
+            try {
+                var snapshot = SubscriptionSnapshotFile.read(snapshotPath);
+                snapshot.getSubscriptions().forEach(this::put);
+                int changed = catchUp(changeFeed, snapshot.getFeedOffset());
+                LOGGER.log(System.Logger.Level.INFO, "Restored {0} subscriptions from {1} and {2} changed since in {3} ms",
+                        snapshot.getSubscriptions().size(), snapshotPath, changed, (System.nanoTime() - start) / 1_000_000);
+                return true;
+            } catch (SnapshotCorruptedException | IllegalStateException e) {
+                LOGGER.log(System.Logger.Level.WARNING, "Cannot restore from " + snapshotPath + ", loading all subscriptions", e);
+                clear();
+            }
+        }
+        subscriptionDao.findAll().forEach(this::put);
+        LOGGER.log(System.Logger.Level.INFO, "Loaded {0} subscriptions from the database in {1} ms",
+                subscriptions.size(), (System.nanoTime() - start) / 1_000_000);
+        return false;
+    }
+
+    private int catchUp(ChangeFeedLog changeFeed, long feedOffset) {
+        var reader = changeFeed.reader(feedOffset);
+        Set<Integer> changedIds = new LinkedHashSet<>();
+        while (reader.poll(CATCH_UP_BATCH, event -> changedIds.add(event.getSubscriptionId())) > 0) {
+            // drain the feed up to its current end
+        }
+        for (Integer id : changedIds) {
+            subscriptionDao.findById(id).ifPresentOrElse(this::put, () -> remove(id));
+        }
+        return changedIds.size();
+    }
+
+    private void put(Subscription subscription) {
+        subscriptions.put(subscription.getId(), subscription);
+        idsByUserId.computeIfAbsent(subscription.getUserId(), userId -> ConcurrentHashMap.newKeySet())
+                .add(subscription.getId());
+    }
+
+    private void remove(Integer id) {
+        var removed = subscriptions.remove(id);
+        if (removed != null) {
+            idsByUserId.getOrDefault(removed.getUserId(), Set.of()).remove(id);
+        }
+    }
+
+    private void clear() {
+        subscriptions.clear();
+        idsByUserId.clear();
+    }
+}
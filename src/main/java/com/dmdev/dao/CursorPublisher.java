@@ -0,0 +1,205 @@
+package com.dmdev.dao;
+
+import com.dmdev.exception.DeadlineExceededException;
+import com.dmdev.resilience.CircuitBreaker;
+import com.dmdev.util.ConnectionManager;
+import lombok.RequiredArgsConstructor;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cold publisher over a forward-only cursor. Every subscription runs the query on its own pooled connection
+ * when the first row is requested and reads a row from the cursor only when there is demand for it, so nothing is
+ * buffered beyond the driver's fetch size. The connection is released on completion, error or cancel.
+ * Rows are read and delivered on the thread calling {@link Flow.Subscription#request}, re-entrant requests from
+ * {@code onNext} are queued as demand instead of recursing.
+ */
+@RequiredArgsConstructor
+class CursorPublisher<T> implements Flow.Publisher<T> {
+
+    private static final System.Logger LOGGER = System.getLogger(CursorPublisher.class.getName());
+
+    private final String sql;
+    private final SqlConsumer<PreparedStatement> binder;
+    private final SqlFunction<ResultSet, T> rowMapper;
+    private final CircuitBreaker circuitBreaker;
+    private final Duration acquireTimeout;
+    private final int fetchSize;
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber);
+        subscriber.onSubscribe(new CursorSubscription(subscriber));
+    }
+
+    private final class CursorSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super T> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger workInProgress = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile IllegalArgumentException invalidRequest;
+        // owned by the thread currently draining
+        private Connection connection;
+        private PreparedStatement preparedStatement;
+        private ResultSet resultSet;
+        private CircuitBreaker.Permit permit;
+        private boolean positioned;
+        private boolean done;
+
+        private CursorSubscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Requested " + n + " rows, demand must be positive");
+            } else {
+                demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        private void drain() {
+            if (workInProgress.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                if (!done) {
+                    emit();
+                }
+                missed = workInProgress.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void emit() {
+            try {
+                while (true) {
+                    if (cancelled) {
+                        finish(Outcome.SUCCESS);
+                        return;
+                    }
+                    if (invalidRequest != null) {
+                        finish(Outcome.SUCCESS);
+                        subscriber.onError(invalidRequest);
+                        return;
+                    }
+                    if (resultSet == null) {
+                        if (demand.get() == 0) {
+                            return;
+                        }
+                        open();
+                    }
+                    if (!positioned) {
+                        if (!resultSet.next()) {
+                            finish(Outcome.SUCCESS);
+                            subscriber.onComplete();
+                            return;
+                        }
+                        positioned = true;
+                    }
+                    if (demand.get() == 0) {
+                        return;
+                    }
+                    T item = rowMapper.apply(resultSet);
+                    positioned = false;
+                    if (demand.get() != Long.MAX_VALUE) {
+                        demand.decrementAndGet();
+                    }
+                    if (!deliver(item)) {
+                        return;
+                    }
+                }
+            } catch (SQLException e) {
+                finish(Outcome.FAILURE);
+                subscriber.onError(e);
+            } catch (DeadlineExceededException e) {
+                // no pooled connection in time, the database was not reached
+                finish(Outcome.NOT_REPORTED);
+                subscriber.onError(e);
+            } catch (RuntimeException e) {
+                finish(Outcome.FAILURE);
+                subscriber.onError(e);
+            }
+        }
+
+        /**
+         * A subscriber must not throw from {@code onNext}; if it does anyway the subscription is cancelled.
+         */
+        private boolean deliver(T item) {
+            try {
+                subscriber.onNext(item);
+                return true;
+            } catch (RuntimeException e) {
+                LOGGER.log(System.Logger.Level.WARNING, "Subscriber failed in onNext, cancelling", e);
+                cancelled = true;
+                finish(Outcome.SUCCESS);
+                return false;
+            }
+        }
+
+        private void open() throws SQLException {
+            permit = circuitBreaker.acquirePermission();
+            connection = ConnectionManager.get(acquireTimeout);
+            // PostgreSQL only streams with a fetch size outside of auto-commit
+            connection.setAutoCommit(false);
+            preparedStatement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            preparedStatement.setFetchSize(fetchSize);
+            binder.accept(preparedStatement);
+            resultSet = preparedStatement.executeQuery();
+        }
+
+        /**
+         * Releases the cursor and reports the outcome to the circuit breaker the same way
+         * {@link SubscriptionDao} does for single statements.
+         */
+        private void finish(Outcome outcome) {
+            done = true;
+            if (permit != null) {
+                switch (outcome) {
+                    case SUCCESS -> circuitBreaker.onSuccess(permit);
+                    case FAILURE -> circuitBreaker.onFailure(permit);
+                    case NOT_REPORTED -> circuitBreaker.release(permit);
+                }
+                permit = null;
+            }
+            closeQuietly(resultSet);
+            closeQuietly(preparedStatement);
+            closeQuietly(connection);
+            resultSet = null;
+            preparedStatement = null;
+            connection = null;
+        }
+
+        private void closeQuietly(AutoCloseable closeable) {
+            if (closeable == null) {
+                return;
+            }
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                LOGGER.log(System.Logger.Level.WARNING, "Failed to close " + closeable, e);
+            }
+        }
+    }
+
+    private enum Outcome {
+        SUCCESS, FAILURE, NOT_REPORTED
+    }
+}
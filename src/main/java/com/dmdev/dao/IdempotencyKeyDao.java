@@ -0,0 +1,67 @@
+package com.dmdev.dao;
+
+import com.dmdev.util.ConnectionManager;
+import lombok.NoArgsConstructor;
+import lombok.SneakyThrows;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Optional;
+
+import static lombok.AccessLevel.PRIVATE;
+
+@NoArgsConstructor(access = PRIVATE)
+public class IdempotencyKeyDao {
+
+    private static final IdempotencyKeyDao INSTANCE = new IdempotencyKeyDao();
+
+    private static final String GET_SUBSCRIPTION_ID_SQL =
+            "SELECT subscription_id FROM idempotency_key WHERE idempotency_key = ? AND expires_at > ?";
+    private static final String DELETE_BY_KEY_SQL = "DELETE FROM idempotency_key WHERE idempotency_key = ?";
+    private static final String DELETE_EXPIRED_SQL = "DELETE FROM idempotency_key WHERE expires_at <= ?";
+    private static final String SAVE_SQL = "INSERT INTO idempotency_key (idempotency_key, subscription_id, expires_at) VALUES (?, ?, ?)";
+
+    public static IdempotencyKeyDao getInstance() {
+        return INSTANCE;
+    }
+
+    @SneakyThrows
+    public Optional<Integer> findSubscriptionId(String idempotencyKey, Instant now) {
+        try (var connection = ConnectionManager.get();
+             var preparedStatement = connection.prepareStatement(GET_SUBSCRIPTION_ID_SQL)) {
+            preparedStatement.setObject(1, idempotencyKey);
+            preparedStatement.setObject(2, Timestamp.from(now));
+
+            var resultSet = preparedStatement.executeQuery();
+            return resultSet.next()
+                    ? Optional.of(resultSet.getInt(1))
+                    : Optional.empty();
+        }
+    }
+
+    @SneakyThrows
+    public void save(String idempotencyKey, Integer subscriptionId, Instant expiresAt) {
+        try (var connection = ConnectionManager.get();
+             var deleteStatement = connection.prepareStatement(DELETE_BY_KEY_SQL);
+             var saveStatement = connection.prepareStatement(SAVE_SQL)) {
+            connection.setAutoCommit(false);
+            deleteStatement.setObject(1, idempotencyKey);
+            deleteStatement.executeUpdate();
+            saveStatement.setObject(1, idempotencyKey);
+            saveStatement.setObject(2, subscriptionId);
+            saveStatement.setObject(3, Timestamp.from(expiresAt));
+            saveStatement.executeUpdate();
+            connection.commit();
+        }
+    }
+
+    @SneakyThrows
+    public int deleteExpired(Instant now) {
+        try (var connection = ConnectionManager.get();
+             var preparedStatement = connection.prepareStatement(DELETE_EXPIRED_SQL)) {
+            preparedStatement.setObject(1, Timestamp.from(now));
+
+            return preparedStatement.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.dmdev.dao;
+
+import java.sql.SQLException;
+
+@FunctionalInterface
+interface SqlConsumer<T> {
+
+    void accept(T value) throws SQLException;
+}
@@ -0,0 +1,9 @@
+package com.dmdev.dao;
+
+import java.sql.SQLException;
+
+@FunctionalInterface
+interface SqlFunction<T, R> {
+
+    R apply(T value) throws SQLException;
+}
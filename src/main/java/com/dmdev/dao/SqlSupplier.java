@@ -0,0 +1,9 @@
+package com.dmdev.dao;
+
+import java.sql.SQLException;
+
+@FunctionalInterface
+interface SqlSupplier<T> {
+
+    T get() throws SQLException;
+}
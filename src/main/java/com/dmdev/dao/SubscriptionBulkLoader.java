@@ -0,0 +1,88 @@
+package com.dmdev.dao;
+
+import com.dmdev.entity.Subscription;
+import com.dmdev.entity.SubscriptionRowMapper;
+import com.dmdev.migration.Dialect;
+import com.dmdev.util.ConnectionManager;
+import com.dmdev.util.PropertiesUtil;
+import lombok.NoArgsConstructor;
+import lombok.SneakyThrows;
+import org.postgresql.PGConnection;
+
+import java.sql.Connection;
+
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * Loads large numbers of subscriptions in a single transaction. On PostgreSQL the rows are streamed through
+ * {@code COPY ... FROM STDIN} in CSV format; any other database falls back to batched inserts. Either way the
+ * generated ids are not read back.
+ */
+@NoArgsConstructor(access = PRIVATE)
+public class SubscriptionBulkLoader {
+
+    private static final SubscriptionBulkLoader INSTANCE = new SubscriptionBulkLoader();
+
+    private static final String COPY_SQL =
+            "COPY subscription (" + SubscriptionRowMapper.INSERT_COLUMNS + ") FROM STDIN WITH (FORMAT csv)";
+    private static final int COPY_FLUSH_BYTES = 64 * 1024;
+    private static final String BATCH_SIZE_KEY = "db.batch-size";
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+
+    public static SubscriptionBulkLoader getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the number of loaded rows. Nothing is loaded if any row fails.
+     */
+    @SneakyThrows
+    public long load(Iterable<Subscription> subscriptions) {
+        try (var connection = ConnectionManager.get()) {
+            return Dialect.of(connection) == Dialect.POSTGRESQL
+                    ? copy(connection, subscriptions)
+                    : insertBatches(connection, subscriptions);
+        }
+    }
+
+    private long copy(Connection connection, Iterable<Subscription> subscriptions) throws Exception {
+        var copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL);
+        try {
+            var encoder = new SubscriptionCsvEncoder(COPY_FLUSH_BYTES + 1024);
+            for (Subscription subscription : subscriptions) {
+                encoder.encode(subscription);
+                if (encoder.getLength() >= COPY_FLUSH_BYTES) {
+                    copyIn.writeToCopy(encoder.getBuffer(), 0, encoder.getLength());
+                    encoder.reset();
+                }
+            }
+            if (encoder.getLength() > 0) {
+                copyIn.writeToCopy(encoder.getBuffer(), 0, encoder.getLength());
+            }
+            return copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private long insertBatches(Connection connection, Iterable<Subscription> subscriptions) throws Exception {
+        var rowMapper = SubscriptionRowMapper.getInstance();
+        int batchSize = PropertiesUtil.getInt(BATCH_SIZE_KEY, DEFAULT_BATCH_SIZE);
+        try (var preparedStatement = connection.prepareStatement(SubscriptionDao.SAVE_SQL)) {
+            connection.setAutoCommit(false);
+            long count = 0;
+            for (Subscription subscription : subscriptions) {
+                rowMapper.bind(preparedStatement, subscription);
+                preparedStatement.addBatch();
+                if (++count % batchSize == 0) {
+                    preparedStatement.executeBatch();
+                }
+            }
+            preparedStatement.executeBatch();
+            connection.commit();
+            return count;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.dmdev.dao;
+
+import com.dmdev.entity.Subscription;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+
+/**
+ * Encodes subscriptions as UTF-8 CSV lines in the column order of {@code SubscriptionRowMapper.INSERT_COLUMNS}.
+ * Every field is written straight into a single growable buffer without building intermediate strings, so a bulk
+ * load does not allocate per row once the buffer has grown to the flush size.
+ */
+class SubscriptionCsvEncoder {
+
+    private static final int SECONDS_PER_DAY = 86_400;
+
+    private final ZoneRules zoneRules = ZoneId.systemDefault().getRules();
+    private byte[] buffer;
+    private int length;
+
+    SubscriptionCsvEncoder(int initialCapacity) {
+        buffer = new byte[initialCapacity];
+    }
+
+    void encode(Subscription subscription) {
+        appendInt(subscription.getUserId());
+        append(',');
+        appendQuoted(subscription.getName());
+        append(',');
+        appendInt(subscription.getProvider().getCode());
+        append(',');
+        appendTimestamp(subscription.getExpirationDate());
+        append(',');
+        appendInt(subscription.getStatus().getCode());
+        append('\n');
+    }
+
+    byte[] getBuffer() {
+        return buffer;
+    }
+
+    int getLength() {
+        return length;
+    }
+
+    void reset() {
+        length = 0;
+    }
+
+    private void appendQuoted(String value) {
+        append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                append('"');
+                append('"');
+            } else if (c < 0x80) {
+                append(c);
+            } else if (c < 0x800) {
+                ensureCapacity(2);
+                buffer[length++] = (byte) (0xC0 | c >> 6);
+                buffer[length++] = (byte) (0x80 | c & 0x3F);
+            } else if (!Character.isSurrogate(c)) {
+                ensureCapacity(3);
+                buffer[length++] = (byte) (0xE0 | c >> 12);
+                buffer[length++] = (byte) (0x80 | c >> 6 & 0x3F);
+                buffer[length++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                ensureCapacity(4);
+                buffer[length++] = (byte) (0xF0 | codePoint >> 18);
+                buffer[length++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                buffer[length++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                buffer[length++] = (byte) (0x80 | codePoint & 0x3F);
+            } else {
+                // unpaired surrogate, replaced like String.getBytes does
+                append('?');
+            }
+        }
+        append('"');
+    }
+
+    /**
+     * Writes the local date-time of the default time zone in the format of {@link java.sql.Timestamp#toString()},
+     * which is what the JDBC driver sends for a {@code Timestamp} parameter.
+     */
+    private void appendTimestamp(Instant instant) {
+        long localSeconds = instant.getEpochSecond() + zoneRules.getOffset(instant).getTotalSeconds();
+        long days = Math.floorDiv(localSeconds, SECONDS_PER_DAY);
+        int secondOfDay = (int) Math.floorMod(localSeconds, SECONDS_PER_DAY);
+        // civil date from days since 1970-01-01, proleptic Gregorian
+        long shifted = days + 719_468;
+        long era = Math.floorDiv(shifted, 146_097);
+        int dayOfEra = (int) (shifted - era * 146_097);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        appendPadded((int) year, 4);
+        append('-');
+        appendPadded(month, 2);
+        append('-');
+        appendPadded(day, 2);
+        append(' ');
+        appendPadded(secondOfDay / 3600, 2);
+        append(':');
+        appendPadded(secondOfDay / 60 % 60, 2);
+        append(':');
+        appendPadded(secondOfDay % 60, 2);
+        append('.');
+        int nanos = instant.getNano();
+        if (nanos == 0) {
+            append('0');
+            return;
+        }
+        int digits = 9;
+        while (nanos % 10 == 0) {
+            nanos /= 10;
+            digits--;
+        }
+        appendPadded(nanos, digits);
+    }
+
+    private void appendInt(int value) {
+        if (value < 0) {
+            append('-');
+            if (value == Integer.MIN_VALUE) {
+                appendPadded(Integer.MAX_VALUE / 10, 1);
+                append('8');
+                return;
+            }
+            value = -value;
+        }
+        appendPadded(value, 1);
+    }
+
+    /**
+     * Writes a non-negative value with at least {@code minDigits} digits, padded with leading zeros.
+     */
+    private void appendPadded(int value, int minDigits) {
+        int digits = 1;
+        for (int rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        digits = Math.max(digits, minDigits);
+        ensureCapacity(digits);
+        for (int i = length + digits - 1; i >= length; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        length += digits;
+    }
+
+    private void append(char c) {
+        ensureCapacity(1);
+        buffer[length++] = (byte) c;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+        }
+    }
+}
@@ -1,113 +1,185 @@
 package com.dmdev.dao;
 
+import com.dmdev.dto.SubscriptionExpirationDto;
+import com.dmdev.dto.SubscriptionIdRangeDto;
+import com.dmdev.dto.SubscriptionKeyDto;
+import com.dmdev.dto.SubscriptionStatusDto;
 import com.dmdev.entity.Provider;
 import com.dmdev.entity.Status;
 import com.dmdev.entity.Subscription;
+import com.dmdev.entity.SubscriptionRowMapper;
+import com.dmdev.exception.DeadlineExceededException;
+import com.dmdev.exception.DuplicateKeyException;
+import com.dmdev.mapper.row.RowMapper;
+import com.dmdev.migration.Dialect;
+import com.dmdev.resilience.CircuitBreaker;
+import com.dmdev.resilience.CircuitBreakerConfig;
+import com.dmdev.resilience.Deadline;
 import com.dmdev.util.ConnectionManager;
+import com.dmdev.util.PropertiesUtil;
 import lombok.SneakyThrows;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
 import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
 
+import static java.sql.Statement.NO_GENERATED_KEYS;
 import static java.sql.Statement.RETURN_GENERATED_KEYS;
 
 public class SubscriptionDao implements Dao<Integer, Subscription> {
 
     private static final SubscriptionDao INSTANCE = new SubscriptionDao();
 
-    private static final String GET_ALL_SQL = """
-            SELECT
-                id,
-                user_id,
-                name,
-                provider,
-                expiration_date,
-                status
-            FROM subscription
-            """;
-    private static final String GET_BY_ID_SQL = GET_ALL_SQL + " WHERE id = ?";
-    private static final String GET_BY_USER_ID_SQL = GET_ALL_SQL + " WHERE user_id = ?";
-    private static final String DELETE_BY_ID_SQL = "DELETE FROM subscription WHERE id = ?";
-    private static final String SAVE_SQL =
-            "INSERT INTO subscription (user_id, name, provider, expiration_date, status) VALUES (?, ?, ?, ?, ?)";
-    private static final String UPDATE_BY_ID_SQL = """
-            UPDATE subscription
-            SET user_id = ?,
-                name = ?,
-                provider = ?,
-                expiration_date = ?,
-                status = ?
-            WHERE id = ?
-            """;
+    private static final RowMapper<Subscription> ROW_MAPPER = SubscriptionRowMapper.getInstance();
+    private static final String TIMEOUT_KEY = "db.timeout";
+    private static final String TIMEOUT_MS_KEY = "db.timeout-ms";
+    private static final String FETCH_SIZE_KEY = "db.fetch-size";
+    private static final long DEFAULT_TIMEOUT_MS = 30_000;
+    private static final int DEFAULT_FETCH_SIZE = 256;
+    private static final String QUERY_CANCELED_SQL_STATE = "57014";
+    private static final String INTEGRITY_VIOLATION_SQL_STATE_CLASS = "23";
+    private static final String UNIQUE_VIOLATION_SQL_STATE = "23505";
+
+    private static final String GET_ALL_SQL = "SELECT " + SubscriptionRowMapper.COLUMNS + " FROM subscription";
+    static final String GET_BY_ID_SQL = GET_ALL_SQL + " WHERE id = ?";
+    static final String GET_BY_USER_ID_SQL = GET_ALL_SQL + " WHERE user_id = ?";
+    private static final String GET_ALL_KEYS_SQL = "SELECT user_id, name FROM subscription";
+    static final String GET_BY_STATUS_SQL = GET_ALL_SQL + " WHERE status = ?";
+    static final String GET_BY_ID_RANGE_SQL = GET_ALL_SQL + " WHERE id BETWEEN ? AND ?";
+    private static final String GET_BY_PROVIDER_ORDERED_BY_KEY_SQL = GET_ALL_SQL + " WHERE provider = ? ORDER BY user_id, name";
+    // H2 compares strings like String.compareTo, PostgreSQL needs the "C" collation to sort by code point
+    private static final String GET_BY_PROVIDER_ORDERED_BY_KEY_POSTGRESQL_SQL = GET_BY_PROVIDER_ORDERED_BY_KEY_SQL + " COLLATE \"C\"";
+    private static final String GET_ID_RANGE_SQL = "SELECT MIN(id), MAX(id) FROM subscription";
+    static final String GET_UNEXPIRED_BEFORE_SQL = GET_ALL_SQL + " WHERE status IN (?, ?) AND expiration_date < ?";
+    static final String GET_STATUS_BY_ID_SQL = "SELECT id, status FROM subscription WHERE id = ?";
+    private static final String GET_EXPIRATIONS_SQL = "SELECT id, user_id, expiration_date FROM subscription";
+    static final String GET_EXPIRATIONS_BY_USER_ID_AND_STATUS_SQL = GET_EXPIRATIONS_SQL + " WHERE user_id = ? AND status = ?";
+    static final String GET_UNEXPIRED_EXPIRATIONS_BEFORE_SQL =
+            GET_EXPIRATIONS_SQL + " WHERE status IN (?, ?) AND expiration_date < ?";
+    private static final String GET_ALL_ARCHIVED_SQL = "SELECT " + SubscriptionRowMapper.COLUMNS + " FROM subscription_archive";
+    static final String GET_BY_ID_INCLUDING_ARCHIVED_SQL =
+            GET_BY_ID_SQL + " UNION ALL " + GET_ALL_ARCHIVED_SQL + " WHERE id = ?";
+    static final String GET_BY_USER_ID_INCLUDING_ARCHIVED_SQL =
+            GET_BY_USER_ID_SQL + " UNION ALL " + GET_ALL_ARCHIVED_SQL + " WHERE user_id = ?";
+    static final String GET_ARCHIVABLE_SQL = "SELECT " + SubscriptionRowMapper.COLUMNS
+            + " FROM subscription WHERE status IN (?, ?) AND expiration_date < ? LIMIT ? FOR UPDATE";
+    private static final String ARCHIVE_BY_ID_SQL = "INSERT INTO subscription_archive (" + SubscriptionRowMapper.COLUMNS
+            + ", archived_at) SELECT " + SubscriptionRowMapper.COLUMNS + ", ? FROM subscription WHERE id = ?";
+    static final String GET_DUE_BY_IDS_SQL = GET_ALL_SQL
+            + " WHERE id = ANY(?) AND status IN (?, ?) AND expiration_date <= ? FOR UPDATE";
+    static final String EXPIRE_BY_IDS_SQL = "UPDATE subscription SET status = ?, expiration_date = ? WHERE id = ANY(?)";
+    static final String DELETE_BY_ID_SQL = "DELETE FROM subscription WHERE id = ?";
+    static final String SAVE_SQL =
+            "INSERT INTO subscription (" + SubscriptionRowMapper.INSERT_COLUMNS + ") VALUES (" + SubscriptionRowMapper.INSERT_PLACEHOLDERS + ")";
+    static final String UPDATE_BY_ID_SQL =
+            "UPDATE subscription SET " + SubscriptionRowMapper.UPDATE_ASSIGNMENTS + " WHERE id = ?";
+    static final String UPDATE_BY_ID_IF_UNCHANGED_SQL = UPDATE_BY_ID_SQL + " AND status = ? AND expiration_date = ?";
+
+    /**
+     * Every statement of this DAO except {@link #SAVE_SQL}, which needs generated keys, and the dialect specific ones.
+     */
+    private static final List<String> QUERIES = List.of(
+            GET_ALL_SQL, GET_BY_ID_SQL, GET_BY_USER_ID_SQL, GET_ALL_KEYS_SQL, GET_BY_STATUS_SQL, GET_BY_ID_RANGE_SQL,
+            GET_ID_RANGE_SQL, GET_UNEXPIRED_BEFORE_SQL, GET_STATUS_BY_ID_SQL, GET_EXPIRATIONS_BY_USER_ID_AND_STATUS_SQL,
+            GET_UNEXPIRED_EXPIRATIONS_BEFORE_SQL, GET_BY_ID_INCLUDING_ARCHIVED_SQL, GET_BY_USER_ID_INCLUDING_ARCHIVED_SQL,
+            GET_ARCHIVABLE_SQL, ARCHIVE_BY_ID_SQL, GET_DUE_BY_IDS_SQL, EXPIRE_BY_IDS_SQL, DELETE_BY_ID_SQL, UPDATE_BY_ID_SQL, UPDATE_BY_ID_IF_UNCHANGED_SQL);
+
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker("subscription-dao", CircuitBreakerConfig.builder().build());
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private volatile Duration defaultTimeout = loadTimeout();
+    private volatile int fetchSize = PropertiesUtil.getInt(FETCH_SIZE_KEY, DEFAULT_FETCH_SIZE);
+    private volatile Dialect dialect;
+
+    private SubscriptionDao() {
+        PropertiesUtil.onChange(TIMEOUT_KEY, () -> defaultTimeout = loadTimeout());
+        PropertiesUtil.onChange(TIMEOUT_MS_KEY, () -> defaultTimeout = loadTimeout());
+        PropertiesUtil.onChange(FETCH_SIZE_KEY, () -> fetchSize = PropertiesUtil.getInt(FETCH_SIZE_KEY, DEFAULT_FETCH_SIZE));
+    }
+
+    /**
+     * {@code db.timeout} is a duration, the older {@code db.timeout-ms} is still read when it is not set.
+     */
+    private static Duration loadTimeout() {
+        return PropertiesUtil.getDuration(TIMEOUT_KEY,
+                Duration.ofMillis(PropertiesUtil.getLong(TIMEOUT_MS_KEY, DEFAULT_TIMEOUT_MS)));
+    }
 
     public static SubscriptionDao getInstance() {
         return INSTANCE;
     }
 
-    @Override
-    @SneakyThrows
-    public List<Subscription> findAll() {
-        try (var connection = ConnectionManager.get();
-             var preparedStatement = connection.prepareStatement(GET_ALL_SQL)) {
-            var resultSet = preparedStatement.executeQuery();
-            List<Subscription> subscriptions = new ArrayList<>();
-            while (resultSet.next()) {
-                subscriptions.add(buildEntity(resultSet));
-            }
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
 
-            return subscriptions;
+    /**
+     * Prepares every statement of this DAO on the given connection and returns their count.
+     */
+    @SneakyThrows
+    public int prepareStatements(Connection connection) {
+        for (String sql : QUERIES) {
+            connection.prepareStatement(sql, NO_GENERATED_KEYS).close();
         }
+        connection.prepareStatement(getByProviderOrderedByKeySql(Dialect.of(connection)), NO_GENERATED_KEYS).close();
+        connection.prepareStatement(SAVE_SQL, RETURN_GENERATED_KEYS).close();
+        return QUERIES.size() + 2;
+    }
+
+    @Override
+    public List<Subscription> findAll() {
+        return execute(GET_ALL_SQL, preparedStatement -> mapAll(preparedStatement.executeQuery()));
     }
 
     @Override
-    @SneakyThrows
     public Optional<Subscription> findById(Integer id) {
-        try (var connection = ConnectionManager.get();
-             var preparedStatement = connection.prepareStatement(GET_BY_ID_SQL)) {
+        return execute(GET_BY_ID_SQL, preparedStatement -> {
             preparedStatement.setObject(1, id);
 
             var resultSet = preparedStatement.executeQuery();
             return resultSet.next()
-                    ? Optional.of(buildEntity(resultSet))
+                    ? Optional.of(ROW_MAPPER.map(resultSet))
                     : Optional.empty();
-        }
+        });
     }
 
     @Override
-    @SneakyThrows
     public boolean delete(Integer id) {
-        try (var connection = ConnectionManager.get();
-             var preparedStatement = connection.prepareStatement(DELETE_BY_ID_SQL)) {
+        return execute(DELETE_BY_ID_SQL, preparedStatement -> {
             preparedStatement.setObject(1, id);
 
             return preparedStatement.executeUpdate() > 0;
-        }
+        });
     }
 
     @Override
-    @SneakyThrows
     public Subscription update(Subscription entity) {
-        try (var connection = ConnectionManager.get();
-             var preparedStatement = connection.prepareStatement(UPDATE_BY_ID_SQL)) {
-            prepareStatementToUpsert(preparedStatement, entity);
-            preparedStatement.setObject(6, entity.getId());
+        return execute(UPDATE_BY_ID_SQL, preparedStatement -> {
+            int boundCount = ROW_MAPPER.bind(preparedStatement, entity);
+            preparedStatement.setObject(boundCount + 1, entity.getId());
 
             preparedStatement.executeUpdate();
             return entity;
-        }
+        });
     }
 
     @Override
-    @SneakyThrows
     public Subscription insert(Subscription entity) {
-        try (var connection = ConnectionManager.get();
-             var preparedStatement = connection.prepareStatement(SAVE_SQL, RETURN_GENERATED_KEYS)) {
-            prepareStatementToUpsert(preparedStatement, entity);
+        return execute(SAVE_SQL, RETURN_GENERATED_KEYS, preparedStatement -> {
+            ROW_MAPPER.bind(preparedStatement, entity);
 
             preparedStatement.executeUpdate();
 
@@ -116,41 +188,390 @@ public class SubscriptionDao implements Dao<Integer, Subscription> {
             entity.setId(generatedKeys.getObject("id", Integer.class));
 
             return entity;
-        }
+        });
     }
 
-    @SneakyThrows
     public List<Subscription> findByUserId(Integer userId) {
-        try (var connection = ConnectionManager.get();
-             var preparedStatement = connection.prepareStatement(GET_BY_USER_ID_SQL)) {
+        return execute(GET_BY_USER_ID_SQL, preparedStatement -> {
             preparedStatement.setObject(1, userId);
 
+            return mapAll(preparedStatement.executeQuery());
+        });
+    }
+
+    /**
+     * Like {@link #findById}, but also looks into {@code subscription_archive}.
+     */
+    public Optional<Subscription> findByIdIncludingArchived(Integer id) {
+        return execute(GET_BY_ID_INCLUDING_ARCHIVED_SQL, preparedStatement -> {
+            preparedStatement.setObject(1, id);
+            preparedStatement.setObject(2, id);
+
             var resultSet = preparedStatement.executeQuery();
-            List<Subscription> subscriptions = new ArrayList<>();
-            while (resultSet.next()) {
-                subscriptions.add(buildEntity(resultSet));
+            return resultSet.next()
+                    ? Optional.of(ROW_MAPPER.map(resultSet))
+                    : Optional.empty();
+        });
+    }
+
+    /**
+     * Like {@link #findByUserId}, but also returns the archived history of the user.
+     */
+    public List<Subscription> findByUserIdIncludingArchived(Integer userId) {
+        return execute(GET_BY_USER_ID_INCLUDING_ARCHIVED_SQL, preparedStatement -> {
+            preparedStatement.setObject(1, userId);
+            preparedStatement.setObject(2, userId);
+
+            return mapAll(preparedStatement.executeQuery());
+        });
+    }
+
+    /**
+     * Inserts the subscriptions with one batch in one transaction, either all or none of them, and sets their
+     * generated ids like {@link #insert}.
+     */
+    public int insertBatch(List<Subscription> subscriptions) {
+        return execute(SAVE_SQL, RETURN_GENERATED_KEYS, preparedStatement -> {
+            for (Subscription subscription : subscriptions) {
+                ROW_MAPPER.bind(preparedStatement, subscription);
+                preparedStatement.addBatch();
+            }
+            int count = executeBatchInTransaction(preparedStatement).length;
+
+            var generatedKeys = preparedStatement.getGeneratedKeys();
+            for (Subscription subscription : subscriptions) {
+                generatedKeys.next();
+                subscription.setId(generatedKeys.getObject("id", Integer.class));
             }
+            return count;
+        });
+    }
+
+    /**
+     * Updates the subscriptions by id with one batch in one transaction, each one only if its stored status and
+     * expiration date are still those of the {@code expected} subscription at the same index. Returns whether each
+     * subscription was updated; a row changed since it was read is left as it is.
+     */
+    public boolean[] updateBatchIfUnchanged(List<Subscription> subscriptions, List<Subscription> expected) {
+        return execute(UPDATE_BY_ID_IF_UNCHANGED_SQL, preparedStatement -> {
+            for (int i = 0; i < subscriptions.size(); i++) {
+                int boundCount = ROW_MAPPER.bind(preparedStatement, subscriptions.get(i));
+                preparedStatement.setObject(boundCount + 1, subscriptions.get(i).getId());
+                preparedStatement.setObject(boundCount + 2, expected.get(i).getStatus().getCode());
+                preparedStatement.setObject(boundCount + 3, Timestamp.from(expected.get(i).getExpirationDate()));
+                preparedStatement.addBatch();
+            }
+            int[] counts = executeBatchInTransaction(preparedStatement);
 
-            return subscriptions;
+            boolean[] updated = new boolean[counts.length];
+            for (int i = 0; i < counts.length; i++) {
+                updated[i] = counts[i] > 0;
+            }
+            return updated;
+        });
+    }
+
+    /**
+     * Expires those of the given subscriptions that are active or canceled and due at {@code now}, setting their
+     * expiration date to {@code now}, with two statements in one transaction. Returns the expired subscriptions as
+     * they were before, so the caller knows their previous status.
+     */
+    public List<Subscription> expireDue(List<Integer> ids, Instant now) {
+        var idArray = ids.toArray(Integer[]::new);
+        return executeOnConnection(GET_DUE_BY_IDS_SQL, (connection, deadline) -> inTransaction(connection, () -> {
+            List<Subscription> due;
+            try (var selectStatement = prepare(connection, GET_DUE_BY_IDS_SQL, NO_GENERATED_KEYS, deadline)) {
+                selectStatement.setObject(1, idArray);
+                selectStatement.setObject(2, Status.ACTIVE.getCode());
+                selectStatement.setObject(3, Status.CANCELED.getCode());
+                selectStatement.setObject(4, Timestamp.from(now));
+                due = mapAll(selectStatement.executeQuery());
+            }
+            if (due.isEmpty()) {
+                return due;
+            }
+            try (var expireStatement = prepare(connection, EXPIRE_BY_IDS_SQL, NO_GENERATED_KEYS, deadline)) {
+                expireStatement.setObject(1, Status.EXPIRED.getCode());
+                expireStatement.setObject(2, Timestamp.from(now));
+                expireStatement.setObject(3, due.stream().map(Subscription::getId).toArray(Integer[]::new));
+                expireStatement.executeUpdate();
+            }
+            return due;
+        }));
+    }
+
+    /**
+     * Moves up to {@code limit} expired or canceled subscriptions whose expiration date is before
+     * {@code expiredBefore} into {@code subscription_archive} in one transaction and returns the moved subscriptions.
+     * The moved rows are locked first, so a concurrent update either happens before the move or waits for it.
+     */
+    public List<Subscription> archive(Instant expiredBefore, int limit, Instant archivedAt) {
+        return executeOnConnection(GET_ARCHIVABLE_SQL, (connection, deadline) -> inTransaction(connection, () -> {
+            List<Subscription> archived;
+            try (var selectStatement = prepare(connection, GET_ARCHIVABLE_SQL, NO_GENERATED_KEYS, deadline)) {
+                selectStatement.setObject(1, Status.EXPIRED.getCode());
+                selectStatement.setObject(2, Status.CANCELED.getCode());
+                selectStatement.setObject(3, Timestamp.from(expiredBefore));
+                selectStatement.setObject(4, limit);
+                archived = mapAll(selectStatement.executeQuery());
+            }
+            if (archived.isEmpty()) {
+                return archived;
+            }
+            try (var archiveStatement = prepare(connection, ARCHIVE_BY_ID_SQL, NO_GENERATED_KEYS, deadline);
+                 var deleteStatement = prepare(connection, DELETE_BY_ID_SQL, NO_GENERATED_KEYS, deadline)) {
+                for (Subscription subscription : archived) {
+                    archiveStatement.setObject(1, Timestamp.from(archivedAt));
+                    archiveStatement.setObject(2, subscription.getId());
+                    archiveStatement.addBatch();
+                    deleteStatement.setObject(1, subscription.getId());
+                    deleteStatement.addBatch();
+                }
+                archiveStatement.executeBatch();
+                deleteStatement.executeBatch();
+            }
+            return archived;
+        }));
+    }
+
+    /**
+     * Reads only the status instead of the whole subscription.
+     */
+    public Optional<SubscriptionStatusDto> findStatusById(Integer id) {
+        return execute(GET_STATUS_BY_ID_SQL, preparedStatement -> {
+            preparedStatement.setObject(1, id);
+
+            var resultSet = preparedStatement.executeQuery();
+            return resultSet.next()
+                    ? Optional.of(new SubscriptionStatusDto(resultSet.getObject(1, Integer.class),
+                            Status.fromCode(resultSet.getInt(2))))
+                    : Optional.empty();
+        });
+    }
+
+    /**
+     * Smallest and largest id, empty if there are no subscriptions.
+     */
+    public Optional<SubscriptionIdRangeDto> findIdRange() {
+        return execute(GET_ID_RANGE_SQL, preparedStatement -> {
+            var resultSet = preparedStatement.executeQuery();
+            resultSet.next();
+            var minId = resultSet.getObject(1, Integer.class);
+            return minId == null
+                    ? Optional.empty()
+                    : Optional.of(new SubscriptionIdRangeDto(minId, resultSet.getObject(2, Integer.class)));
+        });
+    }
+
+    public List<SubscriptionExpirationDto> findActiveExpirationsByUserId(Integer userId) {
+        return execute(GET_EXPIRATIONS_BY_USER_ID_AND_STATUS_SQL, preparedStatement -> {
+            preparedStatement.setObject(1, userId);
+            preparedStatement.setObject(2, Status.ACTIVE.getCode());
+
+            return mapExpirations(preparedStatement.executeQuery());
+        });
+    }
+
+    /**
+     * Same rows as {@link #publishUnexpiredBefore(Instant)}, reading only what is needed to schedule the expiration.
+     */
+    public List<SubscriptionExpirationDto> findUnexpiredExpirationsBefore(Instant expirationDate) {
+        return execute(GET_UNEXPIRED_EXPIRATIONS_BEFORE_SQL, preparedStatement -> {
+            preparedStatement.setObject(1, Status.ACTIVE.getCode());
+            preparedStatement.setObject(2, Status.CANCELED.getCode());
+            preparedStatement.setObject(3, Timestamp.from(expirationDate));
+
+            return mapExpirations(preparedStatement.executeQuery());
+        });
+    }
+
+    /**
+     * Streaming variant of {@link #findAll()}, see {@link CursorPublisher} for the fetching and backpressure rules.
+     */
+    public Flow.Publisher<Subscription> publishAll() {
+        return publish(GET_ALL_SQL, preparedStatement -> {
+        });
+    }
+
+    public Flow.Publisher<Subscription> publishByUserId(Integer userId) {
+        return publish(GET_BY_USER_ID_SQL, preparedStatement -> preparedStatement.setObject(1, userId));
+    }
+
+    public Flow.Publisher<Subscription> publishByStatus(Status status) {
+        return publish(GET_BY_STATUS_SQL, preparedStatement -> preparedStatement.setObject(1, status.getCode()));
+    }
+
+    /**
+     * Streams the subscriptions with {@code fromId <= id <= toId}.
+     */
+    public Flow.Publisher<Subscription> publishByIdRange(Integer fromId, Integer toId) {
+        return publish(GET_BY_ID_RANGE_SQL, preparedStatement -> {
+            preparedStatement.setObject(1, fromId);
+            preparedStatement.setObject(2, toId);
+        });
+    }
+
+    public Flow.Publisher<Subscription> publishUnexpiredBefore(Instant expirationDate) {
+        return publish(GET_UNEXPIRED_BEFORE_SQL, preparedStatement -> {
+            preparedStatement.setObject(1, Status.ACTIVE.getCode());
+            preparedStatement.setObject(2, Status.CANCELED.getCode());
+            preparedStatement.setObject(3, Timestamp.from(expirationDate));
+        });
+    }
+
+    /**
+     * Streams the unique {@code (user_id, name)} key of every subscription.
+     */
+    public Flow.Publisher<SubscriptionKeyDto> publishKeys() {
+        return new CursorPublisher<>(GET_ALL_KEYS_SQL, preparedStatement -> {
+        }, resultSet -> new SubscriptionKeyDto(resultSet.getInt(1), resultSet.getString(2)), circuitBreaker, defaultTimeout, fetchSize);
+    }
+
+    /**
+     * Streams the subscriptions of one provider sorted by {@code (user_id, name)} in the order of
+     * {@link String#compareTo}, for merging with other sorted sources.
+     */
+    public Flow.Publisher<Subscription> publishByProviderOrderedByKey(Provider provider) {
+        return publish(getByProviderOrderedByKeySql(dialect()),
+                preparedStatement -> preparedStatement.setObject(1, provider.getCode()));
+    }
+
+    private static String getByProviderOrderedByKeySql(Dialect dialect) {
+        return dialect == Dialect.POSTGRESQL
+                ? GET_BY_PROVIDER_ORDERED_BY_KEY_POSTGRESQL_SQL
+                : GET_BY_PROVIDER_ORDERED_BY_KEY_SQL;
+    }
+
+    private Dialect dialect() {
+        if (dialect == null) {
+            try (var connection = ConnectionManager.get()) {
+                dialect = Dialect.of(connection);
+            } catch (SQLException e) {
+                throw new IllegalStateException("Failed to detect the database", e);
+            }
         }
+        return dialect;
     }
 
-    private Subscription buildEntity(ResultSet resultSet) throws SQLException {
-        return Subscription.builder()
-                .id(resultSet.getObject("id", Integer.class))
-                .userId(resultSet.getObject("user_id", Integer.class))
-                .name(resultSet.getObject("name", String.class))
-                .provider(Provider.valueOf(resultSet.getObject("provider", String.class)))
-                .expirationDate(resultSet.getObject("expiration_date", Timestamp.class).toInstant())
-                .status(Status.valueOf(resultSet.getObject("status", String.class)))
-                .build();
+    private static int[] executeBatchInTransaction(PreparedStatement preparedStatement) throws SQLException {
+        return inTransaction(preparedStatement.getConnection(), preparedStatement::executeBatch);
     }
 
-    private void prepareStatementToUpsert(PreparedStatement preparedStatement, Subscription entity) throws SQLException {
-        preparedStatement.setObject(1, entity.getUserId());
-        preparedStatement.setObject(2, entity.getName());
-        preparedStatement.setObject(3, entity.getProvider().name());
-        preparedStatement.setObject(4, Timestamp.from(entity.getExpirationDate()));
-        preparedStatement.setObject(5, entity.getStatus().name());
+    /**
+     * Runs the action with auto-commit off and commits it, or rolls it back and rethrows when it fails.
+     */
+    private static <T> T inTransaction(Connection connection, SqlSupplier<T> action) throws SQLException {
+        connection.setAutoCommit(false);
+        try {
+            T result = action.get();
+            connection.commit();
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private Flow.Publisher<Subscription> publish(String sql, SqlConsumer<PreparedStatement> binder) {
+        return new CursorPublisher<>(sql, binder, ROW_MAPPER::map, circuitBreaker, defaultTimeout, fetchSize);
+    }
+
+    private List<Subscription> mapAll(ResultSet resultSet) throws SQLException {
+        List<Subscription> subscriptions = new ArrayList<>();
+        while (resultSet.next()) {
+            subscriptions.add(ROW_MAPPER.map(resultSet));
+        }
+        return subscriptions;
+    }
+
+    private static List<SubscriptionExpirationDto> mapExpirations(ResultSet resultSet) throws SQLException {
+        List<SubscriptionExpirationDto> expirations = new ArrayList<>();
+        while (resultSet.next()) {
+            expirations.add(new SubscriptionExpirationDto(resultSet.getObject(1, Integer.class),
+                    resultSet.getObject(2, Integer.class), resultSet.getTimestamp(3).toInstant()));
+        }
+        return expirations;
+    }
+
+    private <T> T execute(String sql, SqlFunction<PreparedStatement, T> action) {
+        return execute(sql, NO_GENERATED_KEYS, action);
+    }
+
+    private <T> T execute(String sql, int autoGeneratedKeys, SqlFunction<PreparedStatement, T> action) {
+        return executeOnConnection(sql, (connection, deadline) -> {
+            try (var preparedStatement = prepare(connection, sql, autoGeneratedKeys, deadline)) {
+                return action.apply(preparedStatement);
+            }
+        });
+    }
+
+    private static PreparedStatement prepare(Connection connection, String sql, int autoGeneratedKeys,
+                                             Deadline deadline) throws SQLException {
+        var preparedStatement = connection.prepareStatement(sql, autoGeneratedKeys);
+        preparedStatement.setQueryTimeout(deadline.remainingSeconds());
+        return preparedStatement;
+    }
+
+    /**
+     * Runs the statements of the action under the current {@link Deadline} (or the default timeout), which bounds
+     * the wait for a pooled connection and each query, and reports the outcome to the circuit breaker.
+     * Only a query timeout counts as a failure; a deadline that expired before the query was sent, waiting for
+     * the pool included, says nothing about the database and is not reported.
+     * A unique constraint violation (SQLState 23505 on both PostgreSQL and H2) is rethrown as
+     * {@link DuplicateKeyException}.
+     */
+    @SneakyThrows
+    private <T> T executeOnConnection(String sql, ConnectionAction<T> action) {
+        var deadline = Deadline.current().orElseGet(() -> Deadline.after(defaultTimeout));
+        var permit = circuitBreaker.acquirePermission();
+        try {
+            if (deadline.isExpired()) {
+                throw new DeadlineExceededException("Deadline expired before " + sql);
+            }
+            T result;
+            try (var connection = ConnectionManager.get(deadline.remaining())) {
+                result = action.apply(connection, deadline);
+            }
+            circuitBreaker.onSuccess(permit);
+            return result;
+        } catch (SQLException e) {
+            if (isTimeout(e)) {
+                timeoutCount.incrementAndGet();
+                circuitBreaker.onFailure(permit);
+                throw new DeadlineExceededException("Query timed out: " + sql, e);
+            }
+            if (isIntegrityViolation(e)) {
+                circuitBreaker.onSuccess(permit);
+                if (UNIQUE_VIOLATION_SQL_STATE.equals(e.getSQLState())) {
+                    throw new DuplicateKeyException("Unique constraint violated: " + sql, e);
+                }
+            } else {
+                circuitBreaker.onFailure(permit);
+            }
+            throw e;
+        } catch (DeadlineExceededException e) {
+            timeoutCount.incrementAndGet();
+            circuitBreaker.release(permit);
+            throw e;
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure(permit);
+            throw e;
+        }
+    }
+
+    private static boolean isTimeout(SQLException exception) {
+        return exception instanceof SQLTimeoutException || QUERY_CANCELED_SQL_STATE.equals(exception.getSQLState());
+    }
+
+    private static boolean isIntegrityViolation(SQLException exception) {
+        return exception.getSQLState() != null && exception.getSQLState().startsWith(INTEGRITY_VIOLATION_SQL_STATE_CLASS);
+    }
+
+    @FunctionalInterface
+    private interface ConnectionAction<T> {
+
+        T apply(Connection connection, Deadline deadline) throws SQLException;
     }
 }
@@ -0,0 +1,12 @@
+package com.dmdev.dto;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+@Value
+public class SubscriptionExpirationDto {
+    Integer id;
+    Integer userId;
+    Instant expirationDate;
+}
@@ -0,0 +1,9 @@
+package com.dmdev.dto;
+
+import lombok.Value;
+
+@Value
+public class SubscriptionIdRangeDto {
+    Integer minId;
+    Integer maxId;
+}
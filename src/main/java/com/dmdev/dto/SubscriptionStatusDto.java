@@ -0,0 +1,10 @@
+package com.dmdev.dto;
+
+import com.dmdev.entity.Status;
+import lombok.Value;
+
+@Value
+public class SubscriptionStatusDto {
+    Integer id;
+    Status status;
+}
@@ -1,10 +1,28 @@
 package com.dmdev.entity;
 
+import com.dmdev.mapper.row.CodedEnum;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
 import java.util.Arrays;
 import java.util.Optional;
 
-public enum Provider {
-    GOOGLE, APPLE;
+/**
+ * Codes are persisted, never change or reuse them.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum Provider implements CodedEnum {
+    GOOGLE(0),
+    APPLE(1);
+
+    private static final Provider[] BY_CODE = CodedEnum.byCode(Provider.class);
+
+    private final int code;
+
+    public static Provider fromCode(int code) {
+        return CodedEnum.fromCode(BY_CODE, code);
+    }
 
     public static Provider findByName(String name) {
         return findByNameOpt(name).orElseThrow();
@@ -1,5 +1,24 @@
 package com.dmdev.entity;
 
-public enum Status {
-    ACTIVE, CANCELED, EXPIRED
+import com.dmdev.mapper.row.CodedEnum;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Codes are persisted, never change or reuse them.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum Status implements CodedEnum {
+    ACTIVE(0),
+    CANCELED(1),
+    EXPIRED(2);
+
+    private static final Status[] BY_CODE = CodedEnum.byCode(Status.class);
+
+    private final int code;
+
+    public static Status fromCode(int code) {
+        return CodedEnum.fromCode(BY_CODE, code);
+    }
 }
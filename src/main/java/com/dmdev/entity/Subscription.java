@@ -1,5 +1,7 @@
 package com.dmdev.entity;
 
+import com.dmdev.mapper.row.EnumStorage;
+import com.dmdev.mapper.row.GenerateRowMapper;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -12,7 +14,8 @@ import java.time.Instant;
 @Accessors(chain = true)
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
+@GenerateRowMapper(table = "subscription", enumStorage = EnumStorage.CODE)
 public class Subscription implements BaseEntity<Integer> {
     private Integer id;
     private Integer userId;
@@ -20,4 +23,11 @@ public class Subscription implements BaseEntity<Integer> {
     private Provider provider;
     private Instant expirationDate;
     private Status status;
+
+    /**
+     * Returns a new subscription with the same fields, for handing out state that the caller may modify.
+     */
+    public Subscription copy() {
+        return toBuilder().build();
+    }
 }
@@ -0,0 +1,8 @@
+package com.dmdev.exception;
+
+public class CircuitBreakerOpenException extends RuntimeException {
+
+    public CircuitBreakerOpenException(String message) {
+        super(message);
+    }
+}
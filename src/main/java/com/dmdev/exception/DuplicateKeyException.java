@@ -0,0 +1,8 @@
+package com.dmdev.exception;
+
+public class DuplicateKeyException extends RuntimeException {
+
+    public DuplicateKeyException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,8 @@
+package com.dmdev.exception;
+
+public class OverloadException extends RuntimeException {
+
+    public OverloadException(String message) {
+        super(message);
+    }
+}
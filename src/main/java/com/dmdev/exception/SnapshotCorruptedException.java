@@ -0,0 +1,8 @@
+package com.dmdev.exception;
+
+public class SnapshotCorruptedException extends RuntimeException {
+
+    public SnapshotCorruptedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,19 @@
+package com.dmdev.feed;
+
+import com.dmdev.entity.Status;
+import lombok.Value;
+
+import java.time.Instant;
+
+@Value
+public class ChangeEvent {
+    long offset;
+    Integer subscriptionId;
+    Integer userId;
+    Status previousStatus;
+    /**
+     * {@code null} when the subscription was archived.
+     */
+    Status status;
+    Instant expirationDate;
+}
@@ -0,0 +1,50 @@
+package com.dmdev.feed;
+
+import com.dmdev.entity.Status;
+
+import java.time.Instant;
+
+/**
+ * Flyweight over a record of a mapped segment. The same instance is reused for every record handed to a consumer,
+ * use {@link #toEvent()} to keep a record beyond the callback.
+ */
+public class ChangeEventView {
+
+    private Segment segment;
+    private int position;
+    private long offset;
+
+    void wrap(Segment segment, int index) {
+        this.segment = segment;
+        this.position = index * Segment.RECORD_SIZE;
+        this.offset = segment.getBaseOffset() + index;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public int getSubscriptionId() {
+        return segment.readSubscriptionId(position);
+    }
+
+    public int getUserId() {
+        return segment.readUserId(position);
+    }
+
+    public Status getPreviousStatus() {
+        return segment.readPreviousStatus(position);
+    }
+
+    public Status getStatus() {
+        return segment.readStatus(position);
+    }
+
+    public Instant getExpirationDate() {
+        return segment.readExpirationDate(position);
+    }
+
+    public ChangeEvent toEvent() {
+        return new ChangeEvent(offset, getSubscriptionId(), getUserId(), getPreviousStatus(), getStatus(), getExpirationDate());
+    }
+}
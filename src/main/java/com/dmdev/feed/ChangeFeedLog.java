@@ -0,0 +1,119 @@
+package com.dmdev.feed;
+
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.service.SubscriptionListener;
+import lombok.SneakyThrows;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.stream.Stream;
+
+/**
+ * Append-only change feed of subscription state transitions, stored as memory-mapped segments of
+ * {@code segmentCapacity} records. A new segment is started when the active one is full and only the newest
+ * {@code retainedSegments} segments are kept.
+ * Register it with {@link com.dmdev.service.SubscriptionService#addListener} to record every persisted change.
+ * An archived subscription is recorded with no status.
+ */
+public class ChangeFeedLog implements SubscriptionListener, AutoCloseable {
+
+    private final Path directory;
+    private final int segmentCapacity;
+    private final int retainedSegments;
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private Segment active;
+    private int activeCount;
+
+    @SneakyThrows
+    public ChangeFeedLog(Path directory, int segmentCapacity, int retainedSegments) {
+        if (segmentCapacity <= 0 || retainedSegments <= 0) {
+            throw new IllegalArgumentException("Segment capacity and retained segments must be positive");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.segmentCapacity = segmentCapacity;
+        this.retainedSegments = retainedSegments;
+        try (Stream<Path> files = Files.list(directory)) {
+            var paths = files
+                    .filter(path -> Segment.parseBaseOffset(path).isPresent())
+                    .sorted(Comparator.comparing(path -> Segment.parseBaseOffset(path).orElseThrow()))
+                    .toList();
+            for (Path path : paths) {
+                segments.addLast(Segment.open(path, true));
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.addLast(Segment.create(directory, 0, segmentCapacity));
+        }
+        active = segments.getLast();
+        activeCount = active.countCommitted();
+    }
+
+    @Override
+    public void onChange(Status previousStatus, Subscription subscription) {
+        append(previousStatus, subscription);
+    }
+
+    @Override
+    public void onArchive(Subscription subscription) {
+        append(subscription.getId(), subscription.getUserId(), subscription.getStatus(), null,
+                subscription.getExpirationDate());
+    }
+
+    /**
+     * Appends the transition and returns its offset.
+     */
+    public long append(Status previousStatus, Subscription subscription) {
+        return append(subscription.getId(), subscription.getUserId(), previousStatus, subscription.getStatus(),
+                subscription.getExpirationDate());
+    }
+
+    private synchronized long append(int subscriptionId, int userId, Status previousStatus, Status status,
+                                     Instant expirationDate) {
+        if (activeCount == active.getCapacity()) {
+            roll();
+        }
+        active.write(activeCount, subscriptionId, userId, previousStatus, status, expirationDate);
+        return active.getBaseOffset() + activeCount++;
+    }
+
+    public synchronized long getStartOffset() {
+        return segments.getFirst().getBaseOffset();
+    }
+
+    public synchronized long getEndOffset() {
+        return active.getBaseOffset() + activeCount;
+    }
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    public ChangeFeedReader reader(long offset) {
+        return new ChangeFeedReader(directory, offset);
+    }
+
+    public synchronized void flush() {
+        active.force();
+    }
+
+    @Override
+    public synchronized void close() {
+        flush();
+    }
+
+    @SneakyThrows
+    private void roll() {
+        active.force();
+        active = Segment.create(directory, getEndOffset(), segmentCapacity);
+        activeCount = 0;
+        segments.addLast(active);
+        while (segments.size() > retainedSegments) {
+            Files.deleteIfExists(segments.removeFirst().getPath());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.dmdev.feed;
+
+import lombok.SneakyThrows;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Tails a change feed directory from a given offset, possibly from another process than the writer.
+ * Records are handed out as {@link ChangeEventView}s reading straight from the mapped segments. Not thread safe.
+ */
+public class ChangeFeedReader {
+
+    private final Path directory;
+    private final ChangeEventView view = new ChangeEventView();
+    private Segment segment;
+    private long offset;
+
+    public ChangeFeedReader(Path directory, long offset) {
+        this.directory = directory;
+        this.offset = offset;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Passes up to {@code maxEvents} committed events to {@code consumer} and returns how many were read.
+     */
+    public int poll(int maxEvents, Consumer<ChangeEventView> consumer) {
+        int read = 0;
+        while (read < maxEvents && locateSegment()) {
+            int index = (int) (offset - segment.getBaseOffset());
+            if (!segment.isCommitted(index)) {
+                break;
+            }
+            view.wrap(segment, index);
+            consumer.accept(view);
+            offset++;
+            read++;
+        }
+        return read;
+    }
+
+    @SneakyThrows
+    private boolean locateSegment() {
+        if (segment != null && offset < segment.getBaseOffset() + segment.getCapacity()) {
+            return true;
+        }
+        Optional<Path> path = findSegment();
+        if (path.isEmpty() || segment != null && path.get().equals(segment.getPath())) {
+            return false;
+        }
+        var next = Segment.open(path.get(), false);
+        if (next.getCapacity() == 0 || offset >= next.getBaseOffset() + next.getCapacity()) {
+            return false;
+        }
+        segment = next;
+        return true;
+    }
+
+    @SneakyThrows
+    private Optional<Path> findSegment() {
+        try (Stream<Path> files = Files.list(directory)) {
+            var segments = files
+                    .filter(path -> Segment.parseBaseOffset(path).isPresent())
+                    .sorted(Comparator.comparing(path -> Segment.parseBaseOffset(path).orElseThrow()))
+                    .toList();
+            if (!segments.isEmpty() && Segment.parseBaseOffset(segments.get(0)).orElseThrow() > offset) {
+                throw new IllegalStateException(String.format("Offset %d has been removed by retention", offset));
+            }
+            return segments.stream()
+                    .filter(path -> Segment.parseBaseOffset(path).orElseThrow() <= offset)
+                    .reduce((first, second) -> second);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.dmdev.feed;
+
+import com.dmdev.entity.Status;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Memory-mapped segment of fixed-size records. Record layout (big endian, 32 bytes):
+ * commit marker int, subscription id int, user id int, previous status code byte, status code byte, 2 reserved bytes,
+ * expiration epoch seconds long, expiration nanos int, 4 reserved bytes.
+ * The commit marker is written last with release semantics, so a reader that sees it set sees the whole record.
+ */
+@Getter
+class Segment {
+
+    static final int RECORD_SIZE = 32;
+    static final String SUFFIX = ".feed";
+
+    private static final VarHandle INT_VIEW = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final int COMMITTED = 1;
+    private static final int ID_OFFSET = 4;
+    private static final int USER_ID_OFFSET = 8;
+    private static final int PREVIOUS_STATUS_OFFSET = 12;
+    private static final int STATUS_OFFSET = 13;
+    private static final int EXPIRATION_SECONDS_OFFSET = 16;
+    private static final int EXPIRATION_NANOS_OFFSET = 24;
+    private static final byte NO_STATUS = -1;
+
+    private final Path path;
+    private final long baseOffset;
+    private final int capacity;
+    private final MappedByteBuffer buffer;
+
+    private Segment(Path path, long baseOffset, int capacity, MappedByteBuffer buffer) {
+        this.path = path;
+        this.baseOffset = baseOffset;
+        this.capacity = capacity;
+        this.buffer = buffer;
+    }
+
+    static Segment create(Path directory, long baseOffset, int capacity) throws IOException {
+        var path = directory.resolve(fileName(baseOffset));
+        try (var channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new Segment(path, baseOffset, capacity, channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * RECORD_SIZE));
+        }
+    }
+
+    static Segment open(Path path, boolean writable) throws IOException {
+        var options = writable
+                ? new StandardOpenOption[]{StandardOpenOption.READ, StandardOpenOption.WRITE}
+                : new StandardOpenOption[]{StandardOpenOption.READ};
+        try (var channel = FileChannel.open(path, options)) {
+            var size = channel.size();
+            var mode = writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+            return new Segment(path, baseOffsetOf(path), (int) (size / RECORD_SIZE), channel.map(mode, 0, size));
+        }
+    }
+
+    static Optional<Long> parseBaseOffset(Path path) {
+        var fileName = path.getFileName().toString();
+        if (!fileName.endsWith(SUFFIX)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Long.parseLong(fileName.substring(0, fileName.length() - SUFFIX.length())));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    static String fileName(long baseOffset) {
+        return String.format("%020d%s", baseOffset, SUFFIX);
+    }
+
+    boolean isCommitted(int index) {
+        return (int) INT_VIEW.getAcquire(buffer, index * RECORD_SIZE) == COMMITTED;
+    }
+
+    int countCommitted() {
+        int count = 0;
+        while (count < capacity && isCommitted(count)) {
+            count++;
+        }
+        return count;
+    }
+
+    void write(int index, int subscriptionId, int userId, Status previousStatus, Status status, Instant expirationDate) {
+        int position = index * RECORD_SIZE;
+        buffer.putInt(position + ID_OFFSET, subscriptionId);
+        buffer.putInt(position + USER_ID_OFFSET, userId);
+        buffer.put(position + PREVIOUS_STATUS_OFFSET, encode(previousStatus));
+        buffer.put(position + STATUS_OFFSET, encode(status));
+        buffer.putLong(position + EXPIRATION_SECONDS_OFFSET, expirationDate.getEpochSecond());
+        buffer.putInt(position + EXPIRATION_NANOS_OFFSET, expirationDate.getNano());
+        INT_VIEW.setRelease(buffer, position, COMMITTED);
+    }
+
+    int readSubscriptionId(int position) {
+        return buffer.getInt(position + ID_OFFSET);
+    }
+
+    int readUserId(int position) {
+        return buffer.getInt(position + USER_ID_OFFSET);
+    }
+
+    Status readPreviousStatus(int position) {
+        return decode(buffer.get(position + PREVIOUS_STATUS_OFFSET));
+    }
+
+    Status readStatus(int position) {
+        return decode(buffer.get(position + STATUS_OFFSET));
+    }
+
+    Instant readExpirationDate(int position) {
+        return Instant.ofEpochSecond(buffer.getLong(position + EXPIRATION_SECONDS_OFFSET),
+                buffer.getInt(position + EXPIRATION_NANOS_OFFSET));
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    private static long baseOffsetOf(Path path) {
+        return parseBaseOffset(path).orElseThrow(() -> new IllegalArgumentException("Not a feed segment: " + path));
+    }
+
+    private static byte encode(Status status) {
+        return status == null ? NO_STATUS : (byte) status.getCode();
+    }
+
+    private static Status decode(byte code) {
+        return code == NO_STATUS ? null : Status.fromCode(code);
+    }
+}
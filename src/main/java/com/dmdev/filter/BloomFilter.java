@@ -0,0 +1,85 @@
+package com.dmdev.filter;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free Bloom filter over 64-bit hashes. The bit positions come from double hashing of the two halves of the
+ * hash, so callers only need one good 64-bit hash per key. Keys can be added concurrently but never removed.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitSize;
+    private final int hashCount;
+    private final AtomicLong insertions = new AtomicLong();
+
+    private BloomFilter(long bitSize, int hashCount) {
+        this.bitSize = bitSize;
+        this.hashCount = hashCount;
+        this.bits = new AtomicLongArray(Math.toIntExact((bitSize + 63) >>> 6));
+    }
+
+    /**
+     * Sizes the filter so that {@code expectedInsertions} keys give a false positive probability of
+     * {@code falsePositiveRate}.
+     */
+    public static BloomFilter create(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Expected insertions must be positive and the false positive rate in (0, 1)");
+        }
+        long bitSize = Math.max(64, (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+        int hashCount = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+        return new BloomFilter(bitSize, hashCount);
+    }
+
+    public void put(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = bitIndex(h1 + (long) i * h2);
+            long mask = 1L << index;
+            int word = (int) (index >>> 6);
+            long current;
+            do {
+                current = bits.get(word);
+            } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+        }
+        insertions.incrementAndGet();
+    }
+
+    public boolean mightContain(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = bitIndex(h1 + (long) i * h2);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getBitSize() {
+        return bitSize;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    public long getInsertions() {
+        return insertions.get();
+    }
+
+    /**
+     * Theoretical false positive probability after the insertions so far, {@code (1 - e^(-kn/m))^k}.
+     */
+    public double getExpectedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-(double) hashCount * insertions.get() / bitSize), hashCount);
+    }
+
+    private long bitIndex(long combinedHash) {
+        return (combinedHash & Long.MAX_VALUE) % bitSize;
+    }
+}
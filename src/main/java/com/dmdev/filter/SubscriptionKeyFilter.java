@@ -0,0 +1,155 @@
+package com.dmdev.filter;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.dto.SubscriptionKeyDto;
+import com.dmdev.util.PropertiesUtil;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bloom filter over the unique {@code (userId, name)} key of subscriptions, so that an upsert of a subscription
+ * that definitely does not exist yet can skip looking it up. Keys are never removed, archived or deleted
+ * subscriptions only cost a lookup. A key the filter misses, e.g. inserted by another instance, is still caught by
+ * the unique constraint on insert.
+ */
+public class SubscriptionKeyFilter {
+
+    private static final String EXPECTED_INSERTIONS_KEY = "key-filter.expected-insertions";
+    private static final String FALSE_POSITIVE_RATE_KEY = "key-filter.false-positive-rate";
+    private static final long DEFAULT_EXPECTED_INSERTIONS = 1_000_000;
+    private static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final BloomFilter bloomFilter;
+    private final LongAdder skippedLookups = new LongAdder();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    public SubscriptionKeyFilter(BloomFilter bloomFilter) {
+        this.bloomFilter = bloomFilter;
+    }
+
+    /**
+     * A filter that always answers "might contain", i.e. every upsert looks up existing subscriptions.
+     */
+    public static SubscriptionKeyFilter disabled() {
+        return new SubscriptionKeyFilter(null);
+    }
+
+    public static SubscriptionKeyFilter create(long expectedInsertions, double falsePositiveRate) {
+        return new SubscriptionKeyFilter(BloomFilter.create(expectedInsertions, falsePositiveRate));
+    }
+
+    public static SubscriptionKeyFilter fromProperties() {
+        return create(
+                PropertiesUtil.getLong(EXPECTED_INSERTIONS_KEY, DEFAULT_EXPECTED_INSERTIONS),
+                PropertiesUtil.getDouble(FALSE_POSITIVE_RATE_KEY, DEFAULT_FALSE_POSITIVE_RATE));
+    }
+
+    /**
+     * Adds the key of every stored subscription and returns how many were read. Run it before handing the filter
+     * to {@link com.dmdev.service.SubscriptionService#setKeyFilter}, keys inserted meanwhile are added by the service.
+     */
+    public long load(SubscriptionDao subscriptionDao) {
+        var loaded = new LongAdder();
+        var done = new CompletableFuture<Void>();
+        subscriptionDao.publishKeys().subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(SubscriptionKeyDto key) {
+                put(key.getUserId(), key.getName());
+                loaded.increment();
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                done.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(null);
+            }
+        });
+        done.join();
+        return loaded.sum();
+    }
+
+    public void put(Integer userId, String name) {
+        if (bloomFilter != null) {
+            bloomFilter.put(hash(userId, name));
+        }
+    }
+
+    /**
+     * Returns {@code false} only if no subscription with this key has been stored.
+     */
+    public boolean mightContain(Integer userId, String name) {
+        if (bloomFilter == null) {
+            return true;
+        }
+        if (bloomFilter.mightContain(hash(userId, name))) {
+            return true;
+        }
+        skippedLookups.increment();
+        return false;
+    }
+
+    /**
+     * Reports whether a lookup made after {@link #mightContain} answered {@code true} actually found the key.
+     */
+    public void recordLookup(boolean found) {
+        if (bloomFilter == null) {
+            return;
+        }
+        lookups.increment();
+        if (!found) {
+            falsePositives.increment();
+        }
+    }
+
+    public long getSkippedLookups() {
+        return skippedLookups.sum();
+    }
+
+    public long getFalsePositives() {
+        return falsePositives.sum();
+    }
+
+    /**
+     * Observed false positive rate: lookups that found nothing out of all queries for absent keys.
+     */
+    public double getFalsePositiveRate() {
+        long falsePositiveCount = falsePositives.sum();
+        long absent = falsePositiveCount + skippedLookups.sum();
+        return absent == 0 ? 0 : (double) falsePositiveCount / absent;
+    }
+
+    public double getExpectedFalsePositiveRate() {
+        return bloomFilter == null ? 1 : bloomFilter.getExpectedFalsePositiveRate();
+    }
+
+    /**
+     * 64-bit FNV-1a over the user id and the UTF-16 name, finished with the MurmurHash3 mixer.
+     */
+    static long hash(Integer userId, String name) {
+        long hash = FNV_OFFSET_BASIS;
+        hash = (hash ^ userId) * FNV_PRIME;
+        for (int i = 0; i < name.length(); i++) {
+            hash = (hash ^ name.charAt(i)) * FNV_PRIME;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb33fa5a40f27L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,66 @@
+package com.dmdev.jdbc;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Totals of the {@link RoundTrips} of every call of one tracked operation.
+ */
+public class OperationRoundTrips {
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder connections = new LongAdder();
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder jdbcNanos = new LongAdder();
+    private final LongAdder repeatedStatementCalls = new LongAdder();
+    private final LongAccumulator maxStatements = new LongAccumulator(Math::max, 0);
+
+    void record(RoundTrips roundTrips, boolean repeatedStatement) {
+        calls.increment();
+        connections.add(roundTrips.getConnections());
+        statements.add(roundTrips.getStatements());
+        rows.add(roundTrips.getRows());
+        jdbcNanos.add(roundTrips.getJdbcNanos());
+        maxStatements.accumulate(roundTrips.getStatements());
+        if (repeatedStatement) {
+            repeatedStatementCalls.increment();
+        }
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getConnections() {
+        return connections.sum();
+    }
+
+    public long getStatements() {
+        return statements.sum();
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    public long getJdbcNanos() {
+        return jdbcNanos.sum();
+    }
+
+    public long getMaxStatements() {
+        return maxStatements.get();
+    }
+
+    /**
+     * Calls that executed the same SQL more often than the repeated statement threshold.
+     */
+    public long getRepeatedStatementCalls() {
+        return repeatedStatementCalls.sum();
+    }
+
+    public double getAverageStatements() {
+        long callCount = calls.sum();
+        return callCount == 0 ? 0 : (double) statements.sum() / callCount;
+    }
+}
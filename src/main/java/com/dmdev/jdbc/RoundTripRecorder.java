@@ -0,0 +1,169 @@
+package com.dmdev.jdbc;
+
+import com.dmdev.util.PropertiesUtil;
+import lombok.experimental.UtilityClass;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Counts the JDBC round trips of tracked calls. Connections handed out by
+ * {@link com.dmdev.util.ConnectionManager} while a call is tracked on the current thread are wrapped so that every
+ * statement execution and fetched row is recorded; outside a tracked call connections are returned unwrapped.
+ * Nested calls are recorded on their own and added to the enclosing one.
+ */
+@UtilityClass
+public class RoundTripRecorder {
+
+    private static final System.Logger log = System.getLogger(RoundTripRecorder.class.getName());
+    private static final String REPEATED_STATEMENT_THRESHOLD_KEY = "jdbc.repeated-statement-threshold";
+    private static final int DEFAULT_REPEATED_STATEMENT_THRESHOLD = 10;
+
+    private static final ThreadLocal<Scope> current = new ThreadLocal<>();
+    private static final Map<String, OperationRoundTrips> operations = new ConcurrentHashMap<>();
+    private static final int repeatedStatementThreshold =
+            PropertiesUtil.getInt(REPEATED_STATEMENT_THRESHOLD_KEY, DEFAULT_REPEATED_STATEMENT_THRESHOLD);
+
+    public static <T> T track(String operation, Supplier<T> action) {
+        var scope = open(operation);
+        try {
+            return action.get();
+        } finally {
+            close(scope);
+        }
+    }
+
+    public static void track(String operation, Runnable action) {
+        track(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs the action and returns its round trips without adding them to the per-operation totals.
+     */
+    public static RoundTrips capture(Runnable action) {
+        var scope = open(null);
+        try {
+            action.run();
+        } finally {
+            close(scope);
+        }
+        return scope.roundTrips;
+    }
+
+    public static Map<String, OperationRoundTrips> getOperations() {
+        return Map.copyOf(operations);
+    }
+
+    public static void reset() {
+        operations.clear();
+    }
+
+    /**
+     * Wraps a pooled connection if a call is tracked on the current thread.
+     */
+    public static Connection instrument(Connection connection) {
+        var scope = current.get();
+        if (scope == null) {
+            return connection;
+        }
+        scope.roundTrips.onConnection();
+        return proxy(Connection.class, (proxy, method, args) -> {
+            var result = invoke(connection, method, args);
+            if (result instanceof Statement) {
+                var sql = method.getName().startsWith("prepare") ? (String) args[0] : null;
+                return instrumentStatement((Statement) result, method.getReturnType(), sql, scope);
+            }
+            return result;
+        });
+    }
+
+    private static Object instrumentStatement(Statement statement, Class<?> type, String preparedSql, Scope scope) {
+        return proxy(type, (proxy, method, args) -> {
+            if (!method.getName().startsWith("execute")) {
+                var result = invoke(statement, method, args);
+                return result instanceof ResultSet ? instrumentResultSet((ResultSet) result, scope) : result;
+            }
+            var sql = preparedSql != null || args == null ? preparedSql : (String) args[0];
+            long start = System.nanoTime();
+            try {
+                var result = invoke(statement, method, args);
+                return result instanceof ResultSet ? instrumentResultSet((ResultSet) result, scope) : result;
+            } finally {
+                scope.roundTrips.onExecute(sql, System.nanoTime() - start);
+            }
+        });
+    }
+
+    private static ResultSet instrumentResultSet(ResultSet resultSet, Scope scope) {
+        return proxy(ResultSet.class, (proxy, method, args) -> {
+            if (!method.getName().equals("next")) {
+                return invoke(resultSet, method, args);
+            }
+            long start = System.nanoTime();
+            var hasRow = (Boolean) invoke(resultSet, method, args);
+            scope.roundTrips.onFetch(hasRow, System.nanoTime() - start);
+            return hasRow;
+        });
+    }
+
+    private static Scope open(String operation) {
+        var scope = new Scope(operation, current.get());
+        current.set(scope);
+        return scope;
+    }
+
+    private static void close(Scope scope) {
+        if (scope.parent == null) {
+            current.remove();
+        } else {
+            current.set(scope.parent);
+            scope.parent.roundTrips.add(scope.roundTrips);
+        }
+        if (scope.operation == null) {
+            return;
+        }
+        boolean repeatedStatement = scope.roundTrips.getMaxExecutionsOfOneStatement() > repeatedStatementThreshold;
+        if (repeatedStatement) {
+            log.log(System.Logger.Level.WARNING, "{0} executed the same statement more than {1} times, possible N+1: {2}",
+                    scope.operation, repeatedStatementThreshold, scope.roundTrips.getExecutionsBySql());
+        }
+        operations.computeIfAbsent(scope.operation, key -> new OperationRoundTrips())
+                .record(scope.roundTrips, repeatedStatement);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(RoundTripRecorder.class.getClassLoader(), new Class[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static class Scope {
+
+        private final String operation;
+        private final Scope parent;
+        private final RoundTrips roundTrips = new RoundTrips();
+
+        private Scope(String operation, Scope parent) {
+            this.operation = operation;
+            this.parent = parent;
+        }
+    }
+}
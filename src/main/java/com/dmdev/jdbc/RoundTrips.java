@@ -0,0 +1,76 @@
+package com.dmdev.jdbc;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * JDBC work done by one tracked call: connections taken from the pool, statements executed, rows fetched and the
+ * time spent inside the driver. Confined to the thread that runs the call.
+ */
+public class RoundTrips {
+
+    private final Map<String, Integer> executionsBySql = new HashMap<>();
+    private int connections;
+    private int statements;
+    private long rows;
+    private long jdbcNanos;
+
+    public int getConnections() {
+        return connections;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getJdbcNanos() {
+        return jdbcNanos;
+    }
+
+    public Map<String, Integer> getExecutionsBySql() {
+        return Collections.unmodifiableMap(executionsBySql);
+    }
+
+    /**
+     * The most executions of a single SQL string, a high count within one call is the signature of an N+1 pattern.
+     */
+    public int getMaxExecutionsOfOneStatement() {
+        return executionsBySql.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+    }
+
+    void onConnection() {
+        connections++;
+    }
+
+    void onExecute(String sql, long nanos) {
+        statements++;
+        jdbcNanos += nanos;
+        executionsBySql.merge(sql, 1, Integer::sum);
+    }
+
+    void onFetch(boolean hasRow, long nanos) {
+        if (hasRow) {
+            rows++;
+        }
+        jdbcNanos += nanos;
+    }
+
+    void add(RoundTrips other) {
+        connections += other.connections;
+        statements += other.statements;
+        rows += other.rows;
+        jdbcNanos += other.jdbcNanos;
+        other.executionsBySql.forEach((sql, count) -> executionsBySql.merge(sql, count, Integer::sum));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d connections, %d statements, %d rows, %.3f ms",
+                connections, statements, rows, jdbcNanos / 1_000_000.0);
+    }
+}
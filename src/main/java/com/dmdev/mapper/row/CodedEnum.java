@@ -0,0 +1,34 @@
+package com.dmdev.mapper.row;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+
+/**
+ * Enum with a stable numeric code, so it can be stored independently of its constant names and declaration order.
+ * Codes must be small non-negative numbers, they index the lookup table built by {@link #byCode(Class)}.
+ */
+public interface CodedEnum {
+
+    int getCode();
+
+    @SuppressWarnings("unchecked")
+    static <E extends Enum<E> & CodedEnum> E[] byCode(Class<E> type) {
+        var constants = type.getEnumConstants();
+        int maxCode = Arrays.stream(constants).mapToInt(CodedEnum::getCode).max().orElse(-1);
+        var byCode = (E[]) Array.newInstance(type, maxCode + 1);
+        for (E constant : constants) {
+            if (constant.getCode() < 0 || byCode[constant.getCode()] != null) {
+                throw new IllegalArgumentException("Negative or duplicate code " + constant.getCode() + " in " + type.getName());
+            }
+            byCode[constant.getCode()] = constant;
+        }
+        return byCode;
+    }
+
+    static <E extends Enum<E> & CodedEnum> E fromCode(E[] byCode, int code) {
+        if (code < 0 || code >= byCode.length || byCode[code] == null) {
+            throw new IllegalArgumentException("Unknown code " + code);
+        }
+        return byCode[code];
+    }
+}
@@ -0,0 +1,15 @@
+package com.dmdev.mapper.row;
+
+/**
+ * How a generated {@link RowMapper} stores enum columns. It has to match the column types the migrations create.
+ */
+public enum EnumStorage {
+    /**
+     * As the {@link Enum#name()} in a character column.
+     */
+    NAME,
+    /**
+     * As the {@link CodedEnum#getCode()} in a small integer column; every enum field must implement {@link CodedEnum}.
+     */
+    CODE
+}
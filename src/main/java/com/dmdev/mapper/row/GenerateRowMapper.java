@@ -0,0 +1,21 @@
+package com.dmdev.mapper.row;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates {@code <Entity>RowMapper} next to the annotated entity at compile time.
+ * Columns follow the field declaration order, names are the snake_case field names unless overridden by {@link Column}.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface GenerateRowMapper {
+
+    String table();
+
+    String id() default "id";
+
+    EnumStorage enumStorage() default EnumStorage.NAME;
+}
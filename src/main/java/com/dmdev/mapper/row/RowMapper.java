@@ -0,0 +1,19 @@
+package com.dmdev.mapper.row;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+public interface RowMapper<T> {
+
+    /**
+     * Builds an entity from the current row. Columns are read by position, so the query must select them
+     * in the order of the generated {@code COLUMNS} constant.
+     */
+    T map(ResultSet resultSet) throws SQLException;
+
+    /**
+     * Binds every column except the id starting from the first parameter and returns the number of bound parameters.
+     */
+    int bind(PreparedStatement preparedStatement, T entity) throws SQLException;
+}
@@ -0,0 +1,227 @@
+package com.dmdev.mapper.row;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Generates a {@link RowMapper} for every type annotated with {@link GenerateRowMapper}.
+ * Lombok is not available here: this class is compiled before the rest of the module with annotation processing off.
+ */
+@SupportedAnnotationTypes("com.dmdev.mapper.row.GenerateRowMapper")
+public class RowMapperProcessor extends AbstractProcessor {
+
+    private static final Map<String, String> SIMPLE_GETTERS = Map.of(
+            "java.lang.String", "resultSet.getString(%d)",
+            "int", "resultSet.getInt(%d)",
+            "long", "resultSet.getLong(%d)",
+            "boolean", "resultSet.getBoolean(%d)",
+            "double", "resultSet.getDouble(%d)"
+    );
+    private static final Set<String> OBJECT_TYPES = Set.of(
+            "java.lang.Integer",
+            "java.lang.Long",
+            "java.lang.Short",
+            "java.lang.Boolean",
+            "java.lang.Double",
+            "java.math.BigDecimal",
+            "java.time.LocalDate",
+            "java.time.LocalDateTime"
+    );
+    private static final String INSTANT = "java.time.Instant";
+    private static final String CODED_ENUM = "com.dmdev.mapper.row.CodedEnum";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(GenerateRowMapper.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@GenerateRowMapper is only supported on classes");
+                continue;
+            }
+            generate((TypeElement) element);
+        }
+        return true;
+    }
+
+    private void generate(TypeElement entity) {
+        var annotation = entity.getAnnotation(GenerateRowMapper.class);
+        List<Field> fields = new ArrayList<>();
+        for (Element member : entity.getEnclosedElements()) {
+            if (member.getKind() == ElementKind.FIELD && !member.getModifiers().contains(Modifier.STATIC)) {
+                var column = member.getAnnotation(Column.class);
+                var name = member.getSimpleName().toString();
+                fields.add(new Field(name, column != null ? column.value() : toSnakeCase(name), member.asType(), (VariableElement) member));
+            }
+        }
+        var idField = fields.stream()
+                .filter(field -> field.name().equals(annotation.id()))
+                .findFirst();
+        if (idField.isEmpty()) {
+            error(entity, "Id field '" + annotation.id() + "' not found");
+            return;
+        }
+        List<Field> bindFields = fields.stream()
+                .filter(field -> field != idField.get())
+                .toList();
+        var codedEnums = annotation.enumStorage() == EnumStorage.CODE;
+        var codedEnumType = processingEnv.getElementUtils().getTypeElement(CODED_ENUM).asType();
+        List<Field> enumFields = fields.stream()
+                .filter(field -> isEnum(field.type()))
+                .toList();
+        if (codedEnums) {
+            var notCoded = enumFields.stream()
+                    .filter(field -> !processingEnv.getTypeUtils().isAssignable(field.type(), codedEnumType))
+                    .toList();
+            notCoded.forEach(field -> error(field.element(), "Enum stored by code must implement " + CODED_ENUM));
+            if (!notCoded.isEmpty()) {
+                return;
+            }
+        }
+
+        var packageName = processingEnv.getElementUtils().getPackageOf(entity).getQualifiedName().toString();
+        var entityName = entity.getSimpleName().toString();
+        var mapperName = entityName + "RowMapper";
+        try (var out = new PrintWriter(processingEnv.getFiler()
+                .createSourceFile(packageName + "." + mapperName, entity)
+                .openWriter())) {
+            out.printf("package %s;%n%n", packageName);
+            out.printf("@javax.annotation.processing.Generated(\"%s\")%n", getClass().getName());
+            out.printf("public final class %s implements %s<%s> {%n%n", mapperName, RowMapper.class.getName(), entityName);
+            out.printf("    public static final String TABLE = \"%s\";%n", annotation.table());
+            out.printf("    public static final String ID_COLUMN = \"%s\";%n", idField.get().column());
+            out.printf("    public static final String COLUMNS = \"%s\";%n", joinColumns(fields, "%s"));
+            out.printf("    public static final String INSERT_COLUMNS = \"%s\";%n", joinColumns(bindFields, "%s"));
+            out.printf("    public static final String INSERT_PLACEHOLDERS = \"%s\";%n", joinColumns(bindFields, "?"));
+            out.printf("    public static final String UPDATE_ASSIGNMENTS = \"%s\";%n", joinColumns(bindFields, "%s = ?"));
+            out.printf("    public static final int BIND_COUNT = %d;%n%n", bindFields.size());
+            if (codedEnums) {
+                for (Field field : enumFields) {
+                    out.printf("    private static final %1$s[] %2$s = %3$s.byCode(%1$s.class);%n",
+                            typeName(field.type()), byCodeConstant(field), CODED_ENUM);
+                }
+                if (!enumFields.isEmpty()) {
+                    out.println();
+                }
+            }
+            out.printf("    private static final %1$s INSTANCE = new %1$s();%n%n", mapperName);
+            out.printf("    private %s() {%n    }%n%n", mapperName);
+            out.printf("    public static %s getInstance() {%n        return INSTANCE;%n    }%n%n", mapperName);
+
+            out.printf("    @Override%n");
+            out.printf("    public %s map(java.sql.ResultSet resultSet) throws java.sql.SQLException {%n", entityName);
+            out.printf("        var entity = new %s();%n", entityName);
+            for (int i = 0; i < fields.size(); i++) {
+                writeRead(out, fields.get(i), i + 1, codedEnums);
+            }
+            out.printf("        return entity;%n    }%n%n");
+
+            out.printf("    @Override%n");
+            out.printf("    public int bind(java.sql.PreparedStatement preparedStatement, %s entity) throws java.sql.SQLException {%n", entityName);
+            for (int i = 0; i < bindFields.size(); i++) {
+                writeBind(out, bindFields.get(i), i + 1, codedEnums);
+            }
+            out.printf("        return BIND_COUNT;%n    }%n}%n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeRead(PrintWriter out, Field field, int index, boolean codedEnums) {
+        var type = typeName(field.type());
+        var setter = "entity.set" + capitalize(field.name());
+        if (SIMPLE_GETTERS.containsKey(type)) {
+            out.printf("        %s(%s);%n", setter, String.format(SIMPLE_GETTERS.get(type), index));
+        } else if (OBJECT_TYPES.contains(type)) {
+            out.printf("        %s(resultSet.getObject(%d, %s.class));%n", setter, index, type);
+        } else if (INSTANT.equals(type)) {
+            out.printf("        var %s = resultSet.getTimestamp(%d);%n", field.name(), index);
+            out.printf("        %s(%2$s == null ? null : %2$s.toInstant());%n", setter, field.name());
+        } else if (isEnum(field.type()) && codedEnums) {
+            out.printf("        var %s = resultSet.getInt(%d);%n", field.name(), index);
+            out.printf("        %s(resultSet.wasNull() ? null : %s.fromCode(%s, %s));%n",
+                    setter, CODED_ENUM, byCodeConstant(field), field.name());
+        } else if (isEnum(field.type())) {
+            out.printf("        var %s = resultSet.getString(%d);%n", field.name(), index);
+            out.printf("        %s(%2$s == null ? null : %3$s.valueOf(%2$s));%n", setter, field.name(), type);
+        } else {
+            error(field.element(), "Unsupported column type " + type);
+        }
+    }
+
+    private void writeBind(PrintWriter out, Field field, int index, boolean codedEnums) {
+        var type = typeName(field.type());
+        var getter = "entity." + (type.equals("boolean") ? "is" : "get") + capitalize(field.name()) + "()";
+        if (INSTANT.equals(type)) {
+            out.printf("        preparedStatement.setObject(%d, %2$s == null ? null : java.sql.Timestamp.from(%2$s));%n", index, getter);
+        } else if (isEnum(field.type()) && codedEnums) {
+            out.printf("        if (%s == null) {%n", getter);
+            out.printf("            preparedStatement.setNull(%d, java.sql.Types.SMALLINT);%n", index);
+            out.printf("        } else {%n");
+            out.printf("            preparedStatement.setInt(%d, %s.getCode());%n", index, getter);
+            out.printf("        }%n");
+        } else if (isEnum(field.type())) {
+            out.printf("        preparedStatement.setObject(%d, %2$s == null ? null : %2$s.name());%n", index, getter);
+        } else {
+            out.printf("        preparedStatement.setObject(%d, %s);%n", index, getter);
+        }
+    }
+
+    private boolean isEnum(TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED
+                && ((DeclaredType) type).asElement().getKind() == ElementKind.ENUM;
+    }
+
+    private String typeName(TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED
+                ? ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString()
+                : type.toString();
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private static String joinColumns(List<Field> fields, String format) {
+        return fields.stream()
+                .map(field -> String.format(format, field.column()))
+                .collect(Collectors.joining(", "));
+    }
+
+    private static String byCodeConstant(Field field) {
+        return toSnakeCase(field.name()).toUpperCase() + "_BY_CODE";
+    }
+
+    private static String toSnakeCase(String name) {
+        return name.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toLowerCase();
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private record Field(String name, String column, TypeMirror type, VariableElement element) {
+    }
+}
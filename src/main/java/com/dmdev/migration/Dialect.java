@@ -0,0 +1,27 @@
+package com.dmdev.migration;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+
+import java.sql.Connection;
+import java.util.Arrays;
+
+@Getter
+@RequiredArgsConstructor
+public enum Dialect {
+    POSTGRESQL("PostgreSQL", "postgresql"),
+    H2("H2", "h2");
+
+    private final String productName;
+    private final String migrationFolder;
+
+    @SneakyThrows
+    public static Dialect of(Connection connection) {
+        var productName = connection.getMetaData().getDatabaseProductName();
+        return Arrays.stream(values())
+                .filter(dialect -> dialect.productName.equalsIgnoreCase(productName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Unsupported database " + productName));
+    }
+}
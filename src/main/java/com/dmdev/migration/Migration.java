@@ -0,0 +1,13 @@
+package com.dmdev.migration;
+
+import lombok.Value;
+
+@Value(staticConstructor = "of")
+public class Migration {
+    Integer version;
+    String description;
+
+    public String getScriptName() {
+        return String.format("V%d__%s.sql", version, description.replace(' ', '_'));
+    }
+}
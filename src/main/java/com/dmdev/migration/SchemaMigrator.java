@@ -0,0 +1,125 @@
+package com.dmdev.migration;
+
+import com.dmdev.util.ConnectionManager;
+import lombok.NoArgsConstructor;
+import lombok.SneakyThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * Applies the versioned scripts from {@code db/migration/<dialect>} that are not yet recorded in {@code schema_version}.
+ * <p>
+ * Version 4 always converts {@code subscription.provider} and {@code status} to their {@link com.dmdev.mapper.row.CodedEnum}
+ * codes; there is no setting to keep the text columns. The DAO queries, the change feed and the snapshot all use the
+ * codes, so storing enums as codes is chosen per entity with {@link com.dmdev.mapper.row.GenerateRowMapper#enumStorage()}
+ * together with its schema, not per deployment.
+ */
+@NoArgsConstructor(access = PRIVATE)
+public class SchemaMigrator {
+
+    private static final SchemaMigrator INSTANCE = new SchemaMigrator();
+
+    private static final List<Migration> MIGRATIONS = List.of(
+            Migration.of(1, "create subscription"),
+            Migration.of(2, "add subscription indexes"),
+            Migration.of(3, "create idempotency key"),
+            Migration.of(4, "store enums as codes"),
+            Migration.of(5, "create subscription archive")
+    );
+
+    private static final String CREATE_VERSION_TABLE_SQL = """
+            CREATE TABLE IF NOT EXISTS schema_version
+            (
+                version INT PRIMARY KEY,
+                description VARCHAR(128) NOT NULL,
+                applied_at TIMESTAMP NOT NULL
+            )
+            """;
+    private static final String GET_CURRENT_VERSION_SQL = "SELECT COALESCE(MAX(version), 0) FROM schema_version";
+    private static final String SAVE_VERSION_SQL = "INSERT INTO schema_version (version, description, applied_at) VALUES (?, ?, ?)";
+
+    public static SchemaMigrator getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the schema version after migrating.
+     */
+    @SneakyThrows
+    public synchronized int migrate() {
+        try (var connection = ConnectionManager.get()) {
+            return migrate(connection, MIGRATIONS.get(MIGRATIONS.size() - 1).getVersion());
+        }
+    }
+
+    /**
+     * Migrates the given database up to {@code targetVersion}, which lets tests set up data in an older schema.
+     */
+    synchronized int migrate(Connection connection, int targetVersion) throws SQLException {
+        var dialect = Dialect.of(connection);
+        try (var statement = connection.createStatement()) {
+            statement.execute(CREATE_VERSION_TABLE_SQL);
+        }
+        int currentVersion = getCurrentVersion(connection);
+        for (Migration migration : MIGRATIONS) {
+            if (migration.getVersion() > currentVersion && migration.getVersion() <= targetVersion) {
+                apply(connection, dialect, migration);
+                currentVersion = migration.getVersion();
+            }
+        }
+        return currentVersion;
+    }
+
+    public List<Migration> getMigrations() {
+        return MIGRATIONS;
+    }
+
+    private int getCurrentVersion(Connection connection) throws SQLException {
+        try (var statement = connection.createStatement();
+             var resultSet = statement.executeQuery(GET_CURRENT_VERSION_SQL)) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    private void apply(Connection connection, Dialect dialect, Migration migration) throws SQLException {
+        var script = loadScript(dialect, migration);
+        connection.setAutoCommit(false);
+        try (var statement = connection.createStatement();
+             var preparedStatement = connection.prepareStatement(SAVE_VERSION_SQL)) {
+            for (String sql : script.split(";\\s*(\\R|$)")) {
+                if (!sql.isBlank()) {
+                    statement.execute(sql);
+                }
+            }
+            preparedStatement.setObject(1, migration.getVersion());
+            preparedStatement.setObject(2, migration.getDescription());
+            preparedStatement.setObject(3, Timestamp.from(Instant.now()));
+            preparedStatement.executeUpdate();
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    @SneakyThrows
+    private String loadScript(Dialect dialect, Migration migration) {
+        var path = "db/migration/" + dialect.getMigrationFolder() + "/" + migration.getScriptName();
+        try (var inputStream = SchemaMigrator.class.getClassLoader().getResourceAsStream(path)) {
+            if (inputStream == null) {
+                throw new IllegalStateException("Migration script not found: " + path);
+            }
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
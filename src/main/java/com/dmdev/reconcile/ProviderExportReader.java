@@ -0,0 +1,86 @@
+package com.dmdev.reconcile;
+
+import lombok.SneakyThrows;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Streams a provider export of {@code userId,name,expirationDate} lines, the date as an ISO-8601 instant. The name
+ * may contain commas. A first line starting with {@code user_id} is taken as a header and blank lines are skipped.
+ */
+public class ProviderExportReader implements Iterator<ProviderRecord>, AutoCloseable {
+
+    private static final String HEADER_PREFIX = "user_id";
+
+    private final BufferedReader reader;
+    private long lineNumber;
+    private ProviderRecord next;
+
+    public ProviderExportReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = readRecord();
+        }
+        return next != null;
+    }
+
+    @Override
+    public ProviderRecord next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        var record = next;
+        next = null;
+        return record;
+    }
+
+    @Override
+    @SneakyThrows
+    public void close() {
+        reader.close();
+    }
+
+    private ProviderRecord readRecord() {
+        String line;
+        try {
+            do {
+                line = reader.readLine();
+                lineNumber++;
+            } while (line != null && (line.isBlank() || lineNumber == 1 && line.startsWith(HEADER_PREFIX)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return line == null ? null : parse(line);
+    }
+
+    private ProviderRecord parse(String line) {
+        int firstComma = line.indexOf(',');
+        int lastComma = line.lastIndexOf(',');
+        if (firstComma < 0 || firstComma == lastComma) {
+            throw invalidLine(line, null);
+        }
+        try {
+            return new ProviderRecord(
+                    Integer.parseInt(line.substring(0, firstComma).trim()),
+                    line.substring(firstComma + 1, lastComma),
+                    Instant.parse(line.substring(lastComma + 1).trim()));
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw invalidLine(line, e);
+        }
+    }
+
+    private IllegalArgumentException invalidLine(String line, Exception cause) {
+        return new IllegalArgumentException(String.format("Invalid provider export line %d: %s", lineNumber, line), cause);
+    }
+}
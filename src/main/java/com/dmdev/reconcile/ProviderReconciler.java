@@ -0,0 +1,261 @@
+package com.dmdev.reconcile;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.dto.SubscriptionIdRangeDto;
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.exception.DuplicateKeyException;
+import com.dmdev.reconcile.SubscriptionDiff.Type;
+import com.dmdev.service.SubscriptionListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Reconciles the subscriptions of one provider with the provider's export by merging two sorted streams: the export,
+ * which must be sorted by {@code (userId, name)} with names in {@link String#compareTo} order, and a cursor over the
+ * stored subscriptions of that provider in the same order. Memory use does not depend on the size of either side.
+ * <ul>
+ *     <li>{@link Type#NEW} records are inserted, active or, if their expiration date has passed, expired.</li>
+ *     <li>{@link Type#EXTENDED} subscriptions get the provider's expiration date and become active.</li>
+ *     <li>{@link Type#MISSING} active subscriptions are expired now. Rows inserted after the reconciliation started
+ *     are never treated as missing.</li>
+ * </ul>
+ * An extended or missing subscription is only written if its status and expiration date are still those read by the
+ * merge, so a concurrent change made through the service wins and the subscription is counted as skipped.
+ * Changes are written with batched statements of up to {@code batchSize} rows, each batch in its own transaction.
+ * They bypass {@link com.dmdev.service.SubscriptionService}, so the listeners registered there, like the change feed,
+ * the cache and the expiration scheduler, must also be {@link #addListener added} here; they are notified of every
+ * written change once its batch has been committed.
+ */
+public class ProviderReconciler {
+
+    private final SubscriptionDao subscriptionDao;
+    private final Clock clock;
+    private final int batchSize;
+    private final List<SubscriptionListener> listeners = new CopyOnWriteArrayList<>();
+
+    public ProviderReconciler(SubscriptionDao subscriptionDao, Clock clock, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.subscriptionDao = subscriptionDao;
+        this.clock = clock;
+        this.batchSize = batchSize;
+    }
+
+    public void addListener(SubscriptionListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Applies the differences and returns their counts.
+     */
+    public ReconciliationResult reconcile(Provider provider, Iterator<ProviderRecord> records) {
+        return reconcile(provider, records, diff -> {
+        });
+    }
+
+    /**
+     * Applies the differences, passing each one to the listener before it is written.
+     */
+    public ReconciliationResult reconcile(Provider provider, Iterator<ProviderRecord> records,
+                                          Consumer<SubscriptionDiff> listener) {
+        return merge(provider, records, listener, true);
+    }
+
+    /**
+     * Only reports the differences, nothing is written.
+     */
+    public ReconciliationResult diff(Provider provider, Iterator<ProviderRecord> records,
+                                     Consumer<SubscriptionDiff> listener) {
+        return merge(provider, records, listener, false);
+    }
+
+    private ReconciliationResult merge(Provider provider, Iterator<ProviderRecord> records,
+                                       Consumer<SubscriptionDiff> listener, boolean apply) {
+        long start = System.nanoTime();
+        var now = clock.instant();
+        int maxId = subscriptionDao.findIdRange().map(SubscriptionIdRangeDto::getMaxId).orElse(0);
+        var batches = new Batches(apply);
+        long providerRecords = 0;
+        long unchanged = 0;
+        ProviderRecord previous = null;
+        try (var stored = new PublisherIterator<>(subscriptionDao.publishByProviderOrderedByKey(provider))) {
+            var record = nextRecord(records, null);
+            var subscription = stored.hasNext() ? stored.next() : null;
+            while (record != null || subscription != null) {
+                int comparison = record == null ? 1 : subscription == null ? -1 : compare(record, subscription);
+                if (comparison < 0) {
+                    var created = Subscription.builder()
+                            .userId(record.getUserId())
+                            .name(record.getName())
+                            .provider(provider)
+                            .expirationDate(record.getExpirationDate())
+                            .status(record.getExpirationDate().isAfter(now) ? Status.ACTIVE : Status.EXPIRED)
+                            .build();
+                    listener.accept(new SubscriptionDiff(Type.NEW, record, created));
+                    batches.create(created);
+                } else if (comparison > 0) {
+                    if (subscription.getStatus() == Status.ACTIVE && subscription.getId() <= maxId) {
+                        var read = subscription.copy();
+                        subscription.setStatus(Status.EXPIRED).setExpirationDate(now);
+                        listener.accept(new SubscriptionDiff(Type.MISSING, null, subscription));
+                        batches.update(read, subscription);
+                    }
+                } else if (record.getExpirationDate().isAfter(subscription.getExpirationDate())) {
+                    var read = subscription.copy();
+                    subscription.setStatus(Status.ACTIVE).setExpirationDate(record.getExpirationDate());
+                    listener.accept(new SubscriptionDiff(Type.EXTENDED, record, subscription));
+                    batches.update(read, subscription);
+                } else {
+                    unchanged++;
+                }
+                if (comparison <= 0) {
+                    providerRecords++;
+                    previous = record;
+                    record = nextRecord(records, previous);
+                }
+                if (comparison >= 0) {
+                    subscription = stored.hasNext() ? stored.next() : null;
+                }
+            }
+        }
+        batches.flush();
+        return new ReconciliationResult(providerRecords, batches.created, batches.extended, batches.expired,
+                unchanged, batches.conflicts, batches.skipped, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private static ProviderRecord nextRecord(Iterator<ProviderRecord> records, ProviderRecord previous) {
+        if (!records.hasNext()) {
+            return null;
+        }
+        var record = records.next();
+        if (previous != null && compareKeys(previous.getUserId(), previous.getName(), record.getUserId(), record.getName()) >= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Provider export is not strictly sorted by (userId, name): (%d, %s) follows (%d, %s)",
+                    record.getUserId(), record.getName(), previous.getUserId(), previous.getName()));
+        }
+        return record;
+    }
+
+    private static int compare(ProviderRecord record, Subscription subscription) {
+        return compareKeys(record.getUserId(), record.getName(), subscription.getUserId(), subscription.getName());
+    }
+
+    private static int compareKeys(Integer userId, String name, Integer otherUserId, String otherName) {
+        int comparison = Integer.compare(userId, otherUserId);
+        return comparison != 0 ? comparison : name.compareTo(otherName);
+    }
+
+    /**
+     * Pending writes, flushed once a batch is full.
+     */
+    private class Batches {
+
+        private final boolean apply;
+        private final List<Subscription> inserts = new ArrayList<>();
+        private final List<Subscription> updates = new ArrayList<>();
+        private final List<Subscription> reads = new ArrayList<>();
+        private long created;
+        private long extended;
+        private long expired;
+        private long conflicts;
+        private long skipped;
+
+        private Batches(boolean apply) {
+            this.apply = apply;
+        }
+
+        private void create(Subscription subscription) {
+            created++;
+            if (apply) {
+                inserts.add(subscription);
+                flushIfFull(inserts);
+            }
+        }
+
+        /**
+         * {@code read} is the subscription as the merge read it, before the change.
+         */
+        private void update(Subscription read, Subscription subscription) {
+            count(subscription, 1);
+            if (apply) {
+                reads.add(read);
+                updates.add(subscription);
+                flushIfFull(updates);
+            }
+        }
+
+        private void count(Subscription updated, int delta) {
+            if (updated.getStatus() == Status.EXPIRED) {
+                expired += delta;
+            } else {
+                extended += delta;
+            }
+        }
+
+        private void flushIfFull(List<Subscription> batch) {
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (!inserts.isEmpty()) {
+                for (Subscription subscription : insert()) {
+                    notifyListeners(null, subscription);
+                }
+                inserts.clear();
+            }
+            if (!updates.isEmpty()) {
+                boolean[] updated = subscriptionDao.updateBatchIfUnchanged(updates, reads);
+                for (int i = 0; i < updates.size(); i++) {
+                    if (updated[i]) {
+                        notifyListeners(reads.get(i).getStatus(), updates.get(i));
+                    } else {
+                        count(updates.get(i), -1);
+                        skipped++;
+                    }
+                }
+                updates.clear();
+                reads.clear();
+            }
+        }
+
+        /**
+         * Returns the inserted subscriptions. A key stored for another provider fails the whole batch, which is then
+         * retried row by row.
+         */
+        private List<Subscription> insert() {
+            try {
+                subscriptionDao.insertBatch(inserts);
+                return inserts;
+            } catch (DuplicateKeyException e) {
+                List<Subscription> inserted = new ArrayList<>(inserts.size());
+                for (Subscription subscription : inserts) {
+                    try {
+                        inserted.add(subscriptionDao.insert(subscription));
+                    } catch (DuplicateKeyException conflict) {
+                        created--;
+                        conflicts++;
+                    }
+                }
+                return inserted;
+            }
+        }
+    }
+
+    private void notifyListeners(Status previousStatus, Subscription subscription) {
+        for (SubscriptionListener listener : listeners) {
+            listener.onChange(previousStatus, subscription);
+        }
+    }
+}
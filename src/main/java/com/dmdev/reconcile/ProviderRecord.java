@@ -0,0 +1,15 @@
+package com.dmdev.reconcile;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * One subscription as listed in a provider-side export.
+ */
+@Value
+public class ProviderRecord {
+    Integer userId;
+    String name;
+    Instant expirationDate;
+}
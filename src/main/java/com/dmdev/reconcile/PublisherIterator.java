@@ -0,0 +1,77 @@
+package com.dmdev.reconcile;
+
+import lombok.SneakyThrows;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Flow;
+
+/**
+ * Pulls one item at a time from a publisher that delivers on the requesting thread, like the
+ * {@link com.dmdev.dao.SubscriptionDao} publishers, so a cursor can be merged with another sorted source.
+ */
+class PublisherIterator<T> implements Iterator<T>, AutoCloseable, Flow.Subscriber<T> {
+
+    private Flow.Subscription subscription;
+    private T next;
+    private boolean done;
+    private Throwable error;
+
+    PublisherIterator(Flow.Publisher<T> publisher) {
+        publisher.subscribe(this);
+    }
+
+    @Override
+    @SneakyThrows
+    public boolean hasNext() {
+        if (next == null && !done) {
+            subscription.request(1);
+            if (next == null && !done) {
+                throw new IllegalStateException("Publisher did not deliver on the requesting thread");
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+        return next != null;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        var item = next;
+        next = null;
+        return item;
+    }
+
+    @Override
+    public void close() {
+        if (!done) {
+            done = true;
+            subscription.cancel();
+        }
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(T item) {
+        next = item;
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        error = throwable;
+        done = true;
+    }
+
+    @Override
+    public void onComplete() {
+        done = true;
+    }
+}
@@ -0,0 +1,23 @@
+package com.dmdev.reconcile;
+
+import lombok.Value;
+
+import java.time.Duration;
+
+@Value
+public class ReconciliationResult {
+    long providerRecords;
+    long created;
+    long extended;
+    long expired;
+    long unchanged;
+    /**
+     * New records whose {@code (userId, name)} is already stored for another provider, they are not applied.
+     */
+    long conflicts;
+    /**
+     * Extended or missing subscriptions changed by someone else after they were read, they are left as they are.
+     */
+    long skipped;
+    Duration elapsed;
+}
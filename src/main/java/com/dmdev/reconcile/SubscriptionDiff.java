@@ -0,0 +1,31 @@
+package com.dmdev.reconcile;
+
+import com.dmdev.entity.Subscription;
+import lombok.Value;
+
+/**
+ * A difference between a provider export and the stored subscriptions. {@code record} is {@code null} for
+ * {@link Type#MISSING}, {@code subscription} holds the stored row as it will be written.
+ */
+@Value
+public class SubscriptionDiff {
+
+    public enum Type {
+        /**
+         * Listed by the provider but not stored.
+         */
+        NEW,
+        /**
+         * Stored, but the provider lists a later expiration date.
+         */
+        EXTENDED,
+        /**
+         * Stored as active but no longer listed by the provider.
+         */
+        MISSING
+    }
+
+    Type type;
+    ProviderRecord record;
+    Subscription subscription;
+}
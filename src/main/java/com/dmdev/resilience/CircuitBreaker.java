@@ -0,0 +1,159 @@
+package com.dmdev.resilience;
+
+import com.dmdev.exception.CircuitBreakerOpenException;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker. Opens once the failure rate over the last {@code slidingWindowSize} calls
+ * reaches the threshold, rejects calls while open, then lets {@code halfOpenProbes} calls through and closes
+ * again only if all of them succeed. The outcome of a call is reported with the {@link Permit} it was granted, so
+ * that while half-open only the probes decide, not calls that were let through before the breaker opened.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final CircuitBreakerConfig config;
+    private final LongSupplier nanoTime;
+    private final boolean[] outcomes;
+    private State state = State.CLOSED;
+    private int recordedCalls;
+    private int failedCalls;
+    private int nextOutcome;
+    private long openedAtNanos;
+    private long halfOpenPeriod;
+    private int probesStarted;
+    private int probesSucceeded;
+    private long openedCount;
+    private long notPermittedCount;
+
+    public CircuitBreaker(String name, CircuitBreakerConfig config) {
+        this(name, config, System::nanoTime);
+    }
+
+    CircuitBreaker(String name, CircuitBreakerConfig config, LongSupplier nanoTime) {
+        this.name = name;
+        this.config = config;
+        this.nanoTime = nanoTime;
+        this.outcomes = new boolean[config.getSlidingWindowSize()];
+    }
+
+    public synchronized Permit acquirePermission() {
+        if (state == State.OPEN && nanoTime.getAsLong() - openedAtNanos >= config.getOpenDuration().toNanos()) {
+            state = State.HALF_OPEN;
+            halfOpenPeriod++;
+            probesStarted = 0;
+            probesSucceeded = 0;
+        }
+        if (state == State.OPEN || state == State.HALF_OPEN && probesStarted >= config.getHalfOpenProbes()) {
+            notPermittedCount++;
+            throw new CircuitBreakerOpenException(String.format("Circuit breaker %s is %s", name, state));
+        }
+        if (state == State.HALF_OPEN) {
+            probesStarted++;
+            return new Permit(halfOpenPeriod);
+        }
+        return Permit.NOT_PROBE;
+    }
+
+    public synchronized void onSuccess(Permit permit) {
+        if (state == State.HALF_OPEN) {
+            if (isProbe(permit) && ++probesSucceeded == config.getHalfOpenProbes()) {
+                close();
+            }
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure(Permit permit) {
+        if (state == State.HALF_OPEN) {
+            if (isProbe(permit)) {
+                open();
+            }
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED
+                && recordedCalls >= config.getMinimumCalls()
+                && getFailureRate() >= config.getFailureRateThreshold()) {
+            open();
+        }
+    }
+
+    /**
+     * Ends a call whose outcome says nothing about the protected resource, such as one that never reached it.
+     * A probe gives its slot back to the next call.
+     */
+    public synchronized void release(Permit permit) {
+        if (state == State.HALF_OPEN && isProbe(permit)) {
+            probesStarted--;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized double getFailureRate() {
+        return recordedCalls == 0 ? 0 : (double) failedCalls / recordedCalls;
+    }
+
+    public synchronized long getOpenedCount() {
+        return openedCount;
+    }
+
+    public synchronized long getNotPermittedCount() {
+        return notPermittedCount;
+    }
+
+    private boolean isProbe(Permit permit) {
+        return permit.halfOpenPeriod == halfOpenPeriod;
+    }
+
+    private void record(boolean failed) {
+        if (recordedCalls == outcomes.length) {
+            if (outcomes[nextOutcome]) {
+                failedCalls--;
+            }
+        } else {
+            recordedCalls++;
+        }
+        outcomes[nextOutcome] = failed;
+        if (failed) {
+            failedCalls++;
+        }
+        nextOutcome = (nextOutcome + 1) % outcomes.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAtNanos = nanoTime.getAsLong();
+        openedCount++;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        recordedCalls = 0;
+        failedCalls = 0;
+        nextOutcome = 0;
+    }
+
+    /**
+     * Granted by {@link #acquirePermission()} and handed back with the outcome of the call.
+     */
+    public static final class Permit {
+
+        private static final Permit NOT_PROBE = new Permit(0);
+
+        private final long halfOpenPeriod;
+
+        private Permit(long halfOpenPeriod) {
+            this.halfOpenPeriod = halfOpenPeriod;
+        }
+    }
+}
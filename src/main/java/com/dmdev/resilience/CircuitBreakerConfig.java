@@ -0,0 +1,21 @@
+package com.dmdev.resilience;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+
+@Value
+@Builder
+public class CircuitBreakerConfig {
+    @Builder.Default
+    double failureRateThreshold = 0.5;
+    @Builder.Default
+    int slidingWindowSize = 20;
+    @Builder.Default
+    int minimumCalls = 10;
+    @Builder.Default
+    Duration openDuration = Duration.ofSeconds(10);
+    @Builder.Default
+    int halfOpenProbes = 3;
+}
@@ -0,0 +1,62 @@
+package com.dmdev.resilience;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Point in time by which an operation has to complete. {@link #within} makes it visible to the DAO calls made
+ * on the current thread, nested deadlines can only shorten the enclosing one.
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final long deadlineNanos;
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static Deadline after(Duration timeout) {
+        return new Deadline(System.nanoTime() + timeout.toNanos());
+    }
+
+    public static Optional<Deadline> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    public static <T> T within(Duration timeout, Supplier<T> action) {
+        var previous = CURRENT.get();
+        var deadline = after(timeout);
+        if (previous != null && previous.deadlineNanos - deadline.deadlineNanos < 0) {
+            deadline = previous;
+        }
+        CURRENT.set(deadline);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, deadlineNanos - System.nanoTime()));
+    }
+
+    public boolean isExpired() {
+        return deadlineNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Remaining time rounded up to whole seconds, as expected by {@link java.sql.Statement#setQueryTimeout}.
+     */
+    public int remainingSeconds() {
+        long remainingNanos = remaining().toNanos();
+        return (int) Math.max(1, (remainingNanos + 999_999_999L) / 1_000_000_000L);
+    }
+}
@@ -0,0 +1,17 @@
+package com.dmdev.scan;
+
+import lombok.Value;
+
+import java.time.Duration;
+
+@Value
+public class ScanProgress {
+    int completedPartitions;
+    int totalPartitions;
+    long rows;
+    Duration elapsed;
+
+    public boolean isDone() {
+        return completedPartitions == totalPartitions;
+    }
+}
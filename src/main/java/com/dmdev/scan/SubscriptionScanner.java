@@ -0,0 +1,170 @@
+package com.dmdev.scan;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.entity.Subscription;
+import com.dmdev.util.ConnectionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Scans every subscription in parallel for maintenance jobs. The id range is split into {@code partitions} equal
+ * ranges, each streamed through {@link SubscriptionDao#publishByIdRange} on its own pooled connection; at most
+ * {@code parallelism} partitions, and never more than the pool size, are scanned at once. Having several times more
+ * partitions than threads evens out gaps in the ids.
+ * <p>
+ * Rows reach the consumer from the scanning threads concurrently and in no particular order, so the consumer must be
+ * thread-safe. If the consumer or a query fails the remaining partitions are cancelled and the failure is rethrown.
+ */
+public class SubscriptionScanner {
+
+    private final SubscriptionDao subscriptionDao;
+    private final int partitions;
+    private final int parallelism;
+
+    public SubscriptionScanner(SubscriptionDao subscriptionDao, int partitions, int parallelism) {
+        if (partitions <= 0 || parallelism <= 0) {
+            throw new IllegalArgumentException("Partitions and parallelism must be positive");
+        }
+        this.subscriptionDao = subscriptionDao;
+        this.partitions = partitions;
+        this.parallelism = parallelism;
+    }
+
+    public ScanProgress scan(Consumer<Subscription> consumer) {
+        return scan(consumer, progress -> {
+        });
+    }
+
+    /**
+     * Returns the final progress. The progress listener is called, one call at a time, whenever a partition
+     * completes.
+     */
+    public ScanProgress scan(Consumer<Subscription> consumer, Consumer<ScanProgress> progressListener) {
+        long start = System.nanoTime();
+        var idRange = subscriptionDao.findIdRange();
+        if (idRange.isEmpty()) {
+            return new ScanProgress(0, 0, 0, Duration.ofNanos(System.nanoTime() - start));
+        }
+        var ranges = split(idRange.get().getMinId(), idRange.get().getMaxId());
+        var scan = new Scan(consumer, progressListener, ranges.size(), start);
+        int threads = Math.min(Math.min(parallelism, ConnectionManager.getPoolSize()), ranges.size());
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            var thread = new Thread(runnable, "subscription-scan");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            var futures = ranges.stream()
+                    .map(range -> CompletableFuture.runAsync(() -> scan.partition(range[0], range[1]), executor))
+                    .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        } finally {
+            executor.shutdownNow();
+        }
+        return scan.progress();
+    }
+
+    /**
+     * Inclusive {@code [from, to]} ranges covering {@code minId..maxId}.
+     */
+    List<int[]> split(int minId, int maxId) {
+        long span = (long) maxId - minId + 1;
+        long width = (span + partitions - 1) / partitions;
+        List<int[]> ranges = new ArrayList<>();
+        for (long from = minId; from <= maxId; from += width) {
+            ranges.add(new int[]{(int) from, (int) Math.min(from + width - 1, maxId)});
+        }
+        return ranges;
+    }
+
+    private class Scan {
+
+        private final Consumer<Subscription> consumer;
+        private final Consumer<ScanProgress> progressListener;
+        private final int totalPartitions;
+        private final long startNanos;
+        private final LongAdder rows = new LongAdder();
+        private final AtomicInteger completedPartitions = new AtomicInteger();
+        private volatile boolean failed;
+
+        private Scan(Consumer<Subscription> consumer, Consumer<ScanProgress> progressListener,
+                     int totalPartitions, long startNanos) {
+            this.consumer = consumer;
+            this.progressListener = progressListener;
+            this.totalPartitions = totalPartitions;
+            this.startNanos = startNanos;
+        }
+
+        private void partition(int fromId, int toId) {
+            if (failed) {
+                return;
+            }
+            var done = new CompletableFuture<Void>();
+            subscriptionDao.publishByIdRange(fromId, toId)
+                    .subscribe(new Flow.Subscriber<>() {
+                        private Flow.Subscription subscription;
+
+                        @Override
+                        public void onSubscribe(Flow.Subscription subscription) {
+                            this.subscription = subscription;
+                            subscription.request(Long.MAX_VALUE);
+                        }
+
+                        @Override
+                        public void onNext(Subscription item) {
+                            if (failed) {
+                                subscription.cancel();
+                                done.complete(null);
+                                return;
+                            }
+                            try {
+                                consumer.accept(item);
+                            } catch (RuntimeException e) {
+                                failed = true;
+                                subscription.cancel();
+                                done.completeExceptionally(e);
+                                return;
+                            }
+                            rows.increment();
+                        }
+
+                        @Override
+                        public void onError(Throwable throwable) {
+                            failed = true;
+                            done.completeExceptionally(throwable);
+                        }
+
+                        @Override
+                        public void onComplete() {
+                            done.complete(null);
+                        }
+                    });
+            done.join();
+            completedPartitions.incrementAndGet();
+            var progress = progress();
+            synchronized (this) {
+                progressListener.accept(progress);
+            }
+        }
+
+        private ScanProgress progress() {
+            return new ScanProgress(completedPartitions.get(), totalPartitions, rows.sum(),
+                    Duration.ofNanos(System.nanoTime() - startNanos));
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.dmdev.scheduler;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.dto.SubscriptionExpirationDto;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.exception.OverloadException;
+import com.dmdev.service.SubscriptionListener;
+import com.dmdev.service.SubscriptionService;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Expires subscriptions when their expiration date comes due.
+ * Only subscriptions expiring within the sliding {@code window} are kept in memory; the window is reloaded from
+ * the database when half of it has elapsed, changes made through {@link SubscriptionService} are applied incrementally.
+ * Add it as a listener of {@link com.dmdev.reconcile.ProviderReconciler} too, so reconciled rows are scheduled as well.
+ */
+public class ExpirationScheduler implements SubscriptionListener, AutoCloseable {
+
+    private static final System.Logger LOGGER = System.getLogger(ExpirationScheduler.class.getName());
+    private static final int WHEEL_SIZE = 64;
+
+    private final SubscriptionDao subscriptionDao;
+    private final SubscriptionService subscriptionService;
+    private final Clock clock;
+    private final Duration tick;
+    private final Duration window;
+    private final int batchSize;
+    private final TimerWheel<Integer> timerWheel;
+    private final Set<Integer> pending = new LinkedHashSet<>();
+    private Instant windowEnd;
+    private ScheduledExecutorService executor;
+
+    public ExpirationScheduler(SubscriptionDao subscriptionDao,
+                               SubscriptionService subscriptionService,
+                               Clock clock,
+                               Duration tick,
+                               Duration window,
+                               int batchSize) {
+        this.subscriptionDao = subscriptionDao;
+        this.subscriptionService = subscriptionService;
+        this.clock = clock;
+        this.tick = tick;
+        this.window = window;
+        this.batchSize = batchSize;
+        this.timerWheel = new TimerWheel<>(tick.toMillis(), WHEEL_SIZE, levelsFor(tick, window), clock.millis());
+        this.windowEnd = clock.instant();
+    }
+
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        subscriptionService.addListener(this);
+        loadWindow();
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "subscription-expiration");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::runSafely, tick.toMillis(), tick.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Loads every unexpired subscription with an expiration date before the end of the new window.
+     */
+    public synchronized void loadWindow() {
+        var now = clock.instant();
+        pending.addAll(timerWheel.advance(now.toEpochMilli()));
+        windowEnd = now.plus(window);
+        for (SubscriptionExpirationDto expiration : subscriptionDao.findUnexpiredExpirationsBefore(windowEnd)) {
+            if (pending.contains(expiration.getId())) {
+                continue;
+            }
+            timerWheel.schedule(expiration.getId(), expiration.getExpirationDate().toEpochMilli());
+        }
+    }
+
+    /**
+     * Expires at most {@code batchSize} subscriptions that have come due with one service call and returns how many
+     * were expired. When the call fails, the whole batch stays pending for the next call.
+     */
+    public int expireDue() {
+        List<Integer> batch = nextBatch();
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        try {
+            return subscriptionService.expireDue(batch);
+        } catch (OverloadException e) {
+            requeue(batch);
+            LOGGER.log(System.Logger.Level.DEBUG, "Postponed {0} expirations: {1}", batch.size(), e.getMessage());
+        } catch (RuntimeException e) {
+            requeue(batch);
+            LOGGER.log(System.Logger.Level.WARNING, "Failed to expire subscriptions " + batch, e);
+        }
+        return 0;
+    }
+
+    public synchronized int getScheduledCount() {
+        return timerWheel.size();
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    @Override
+    public synchronized void onChange(Status previousStatus, Subscription subscription) {
+        pending.remove(subscription.getId());
+        if (subscription.getStatus() == Status.EXPIRED || !subscription.getExpirationDate().isBefore(windowEnd)) {
+            timerWheel.cancel(subscription.getId());
+            return;
+        }
+        timerWheel.schedule(subscription.getId(), subscription.getExpirationDate().toEpochMilli());
+    }
+
+    @Override
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private synchronized List<Integer> nextBatch() {
+        var now = clock.instant();
+        if (!now.isBefore(windowEnd.minus(window.dividedBy(2)))) {
+            loadWindow();
+        }
+        pending.addAll(timerWheel.advance(now.toEpochMilli()));
+        List<Integer> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+        var iterator = pending.iterator();
+        while (batch.size() < batchSize && iterator.hasNext()) {
+            batch.add(iterator.next());
+            iterator.remove();
+        }
+        return batch;
+    }
+
+    private synchronized void requeue(List<Integer> subscriptionIds) {
+        pending.addAll(subscriptionIds);
+    }
+
+    private void runSafely() {
+        try {
+            expireDue();
+        } catch (RuntimeException e) {
+            LOGGER.log(System.Logger.Level.WARNING, "Failed to expire due subscriptions", e);
+        }
+    }
+
+    private static int levelsFor(Duration tick, Duration window) {
+        long ticks = Math.max(1, window.toMillis() / tick.toMillis()) * 2;
+        int levels = 1;
+        for (long capacity = WHEEL_SIZE; capacity < ticks; capacity *= WHEEL_SIZE) {
+            levels++;
+        }
+        return levels;
+    }
+}
@@ -0,0 +1,158 @@
+package com.dmdev.scheduler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hierarchical timer wheel. Level {@code n} has {@code wheelSize} slots of {@code wheelSize^n} ticks each,
+ * entries are cascaded to the lower level when the slot they live in becomes current.
+ * Not thread safe.
+ */
+public class TimerWheel<K> {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final int levels;
+    private final long horizonTicks;
+    private final List<Set<K>> buckets;
+    private final Map<K, Long> deadlines = new HashMap<>();
+    private final Map<K, Integer> bucketIndexes = new HashMap<>();
+    private final Set<K> due = new LinkedHashSet<>();
+    private long currentTick;
+
+    public TimerWheel(long tickMillis, int wheelSize, int levels, long startMillis) {
+        if (tickMillis <= 0 || wheelSize < 2 || levels < 1) {
+            throw new IllegalArgumentException("Invalid timer wheel geometry");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.levels = levels;
+        long horizon = 1;
+        for (int level = 0; level < levels; level++) {
+            horizon = Math.multiplyExact(horizon, wheelSize);
+        }
+        this.horizonTicks = horizon;
+        this.buckets = new ArrayList<>(wheelSize * levels);
+        for (int i = 0; i < wheelSize * levels; i++) {
+            buckets.add(new LinkedHashSet<>());
+        }
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+    }
+
+    public long getHorizonMillis() {
+        return horizonTicks * tickMillis;
+    }
+
+    public int size() {
+        return deadlines.size();
+    }
+
+    public boolean contains(K key) {
+        return deadlines.containsKey(key);
+    }
+
+    /**
+     * Schedules or reschedules {@code key}. Returns {@code false} if the deadline is beyond the wheel horizon,
+     * in which case any previous schedule of the key is dropped as well.
+     */
+    public boolean schedule(K key, long deadlineMillis) {
+        cancel(key);
+        long deadlineTick = deadlineTick(deadlineMillis);
+        if (deadlineTick - currentTick >= horizonTicks) {
+            return false;
+        }
+        deadlines.put(key, deadlineMillis);
+        place(key, deadlineTick);
+        return true;
+    }
+
+    public boolean cancel(K key) {
+        if (deadlines.remove(key) == null) {
+            return false;
+        }
+        var bucketIndex = bucketIndexes.remove(key);
+        if (bucketIndex != null) {
+            buckets.get(bucketIndex).remove(key);
+        } else {
+            due.remove(key);
+        }
+        return true;
+    }
+
+    /**
+     * Moves the wheel forward to {@code nowMillis} and returns the keys whose deadline has been reached.
+     */
+    public List<K> advance(long nowMillis) {
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+        List<K> fired = new ArrayList<>();
+        drainDue(fired);
+        while (currentTick < targetTick) {
+            if (deadlines.isEmpty()) {
+                currentTick = targetTick;
+                break;
+            }
+            currentTick++;
+            long ticksPerSlot = horizonTicks / wheelSize;
+            for (int level = levels - 1; level > 0; level--) {
+                if (currentTick % ticksPerSlot == 0) {
+                    cascade(level * wheelSize + (int) ((currentTick / ticksPerSlot) % wheelSize));
+                }
+                ticksPerSlot /= wheelSize;
+            }
+            var bucket = buckets.get((int) (currentTick % wheelSize));
+            for (K key : bucket) {
+                bucketIndexes.remove(key);
+                deadlines.remove(key);
+                fired.add(key);
+            }
+            bucket.clear();
+            drainDue(fired);
+        }
+        return fired;
+    }
+
+    private void place(K key, long deadlineTick) {
+        long delta = deadlineTick - currentTick;
+        if (delta <= 0) {
+            due.add(key);
+            return;
+        }
+        long ticksPerSlot = 1;
+        for (int level = 0; level < levels; level++) {
+            if (delta < ticksPerSlot * wheelSize) {
+                int bucketIndex = level * wheelSize + (int) ((deadlineTick / ticksPerSlot) % wheelSize);
+                buckets.get(bucketIndex).add(key);
+                bucketIndexes.put(key, bucketIndex);
+                return;
+            }
+            ticksPerSlot *= wheelSize;
+        }
+        throw new IllegalStateException("Deadline is beyond the timer wheel horizon");
+    }
+
+    private void cascade(int bucketIndex) {
+        var bucket = buckets.get(bucketIndex);
+        List<K> keys = new ArrayList<>(bucket);
+        bucket.clear();
+        for (K key : keys) {
+            bucketIndexes.remove(key);
+            place(key, deadlineTick(deadlines.get(key)));
+        }
+    }
+
+    private long deadlineTick(long deadlineMillis) {
+        return -Math.floorDiv(-deadlineMillis, tickMillis);
+    }
+
+    private void drainDue(List<K> fired) {
+        for (K key : due) {
+            deadlines.remove(key);
+            fired.add(key);
+        }
+        due.clear();
+    }
+}
@@ -0,0 +1,196 @@
+package com.dmdev.service;
+
+import com.dmdev.dao.IdempotencyKeyDao;
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.entity.Subscription;
+import com.dmdev.util.PropertiesUtil;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, time-expiring table of recently seen idempotency keys and the subscriptions they produced.
+ * A repeated key returns the stored result, a concurrent duplicate waits for the first request to finish.
+ * With an {@link IdempotencyKeyDao} the keys are also persisted, so they survive restarts and evictions; only the
+ * subscription id is persisted though, so a key found in the database alone returns the subscription as it is now,
+ * not as the first request returned it. {@link #startPurging} deletes the persisted keys once they expire.
+ */
+public class IdempotencyTable implements AutoCloseable {
+
+    private static final System.Logger LOGGER = System.getLogger(IdempotencyTable.class.getName());
+
+    private static final String CAPACITY_KEY = "idempotency.capacity";
+    private static final String TTL_SECONDS_KEY = "idempotency.ttl-seconds";
+    private static final int DEFAULT_CAPACITY = 10_000;
+    private static final long DEFAULT_TTL_SECONDS = 600;
+
+    private final int capacity;
+    private final Duration ttl;
+    private final Clock clock;
+    private final IdempotencyKeyDao idempotencyKeyDao;
+    private final SubscriptionDao subscriptionDao;
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private ScheduledExecutorService purger;
+
+    public IdempotencyTable(int capacity, Duration ttl, Clock clock) {
+        this(capacity, ttl, clock, null, null);
+    }
+
+    public IdempotencyTable(int capacity,
+                            Duration ttl,
+                            Clock clock,
+                            IdempotencyKeyDao idempotencyKeyDao,
+                            SubscriptionDao subscriptionDao) {
+        this.capacity = capacity;
+        this.ttl = ttl;
+        this.clock = clock;
+        this.idempotencyKeyDao = idempotencyKeyDao;
+        this.subscriptionDao = subscriptionDao;
+    }
+
+    public static IdempotencyTable inMemory() {
+        return new IdempotencyTable(
+                PropertiesUtil.getInt(CAPACITY_KEY, DEFAULT_CAPACITY),
+                Duration.ofSeconds(PropertiesUtil.getLong(TTL_SECONDS_KEY, DEFAULT_TTL_SECONDS)),
+                Clock.systemUTC());
+    }
+
+    public Subscription execute(String idempotencyKey, Supplier<Subscription> operation) {
+        Entry entry;
+        boolean owner = false;
+        synchronized (this) {
+            var now = clock.instant();
+            evictExpired(now);
+            entry = entries.get(idempotencyKey);
+            if (entry == null) {
+                entry = new Entry(new CompletableFuture<>(), now.plus(ttl));
+                entries.put(idempotencyKey, entry);
+                owner = true;
+                evictOverCapacity();
+            }
+        }
+        if (!owner) {
+            return await(entry.result()).copy();
+        }
+
+        try {
+            var persisted = findPersisted(idempotencyKey);
+            var result = persisted.orElseGet(operation);
+            if (persisted.isEmpty() && idempotencyKeyDao != null) {
+                idempotencyKeyDao.save(idempotencyKey, result.getId(), entry.expiresAt());
+            }
+            entry.result().complete(result.copy());
+            return result;
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                entries.remove(idempotencyKey, entry);
+            }
+            entry.result().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Runs {@link #purgeExpired()} every {@code interval} in a background thread.
+     */
+    public synchronized void startPurging(Duration interval) {
+        if (purger != null || idempotencyKeyDao == null) {
+            return;
+        }
+        purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "idempotency-key-purger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        purger.scheduleWithFixedDelay(this::purgeSafely, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Deletes the expired persisted keys and returns how many were deleted.
+     */
+    public int purgeExpired() {
+        return idempotencyKeyDao == null ? 0 : idempotencyKeyDao.deleteExpired(clock.instant());
+    }
+
+    @Override
+    public synchronized void close() {
+        if (purger != null) {
+            purger.shutdownNow();
+            purger = null;
+        }
+    }
+
+    private void purgeSafely() {
+        try {
+            int purged = purgeExpired();
+            if (purged > 0) {
+                LOGGER.log(System.Logger.Level.INFO, "Deleted {0} expired idempotency keys", purged);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.log(System.Logger.Level.WARNING, "Failed to delete expired idempotency keys", e);
+        }
+    }
+
+    private Optional<Subscription> findPersisted(String idempotencyKey) {
+        if (idempotencyKeyDao == null) {
+            return Optional.empty();
+        }
+        return idempotencyKeyDao.findSubscriptionId(idempotencyKey, clock.instant())
+                .flatMap(subscriptionDao::findById);
+    }
+
+    private void evictExpired(Instant now) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            var entry = iterator.next();
+            if (entry.expiresAt().isAfter(now)) {
+                break;
+            }
+            if (entry.result().isDone()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Evicts the eldest completed entries; an entry whose operation is still running is kept even over capacity,
+     * otherwise a retry arriving meanwhile would run the operation again.
+     */
+    private void evictOverCapacity() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > capacity && iterator.hasNext()) {
+            if (iterator.next().result().isDone()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static Subscription await(CompletableFuture<Subscription> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    private record Entry(CompletableFuture<Subscription> result, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,21 @@
+package com.dmdev.service;
+
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+
+public interface SubscriptionListener {
+
+    /**
+     * Called after a subscription has been persisted by {@link SubscriptionService} or
+     * {@link com.dmdev.reconcile.ProviderReconciler}.
+     * {@code previousStatus} is {@code null} when the subscription was just inserted.
+     */
+    void onChange(Status previousStatus, Subscription subscription);
+
+    /**
+     * Called after the subscription has been moved to the archive by
+     * {@link com.dmdev.archive.SubscriptionArchiver}, it is no longer found by id.
+     */
+    default void onArchive(Subscription subscription) {
+    }
+}
@@ -1,18 +1,27 @@
 package com.dmdev.service;
 
+import com.dmdev.admission.AdmissionController;
+import com.dmdev.admission.Operation;
 import com.dmdev.dao.SubscriptionDao;
 import com.dmdev.dto.CreateSubscriptionDto;
 import com.dmdev.entity.Provider;
 import com.dmdev.entity.Status;
 import com.dmdev.entity.Subscription;
+import com.dmdev.exception.DuplicateKeyException;
 import com.dmdev.exception.SubscriptionException;
 import com.dmdev.exception.ValidationException;
+import com.dmdev.filter.SubscriptionKeyFilter;
+import com.dmdev.jdbc.RoundTripRecorder;
 import com.dmdev.mapper.CreateSubscriptionMapper;
 import com.dmdev.validator.CreateSubscriptionValidator;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 
 import java.time.Clock;
 import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 @RequiredArgsConstructor
 public class SubscriptionService {
@@ -21,26 +30,97 @@ public class SubscriptionService {
     private final CreateSubscriptionMapper createSubscriptionMapper;
     private final CreateSubscriptionValidator createSubscriptionValidator;
     private final Clock clock;
+    private final List<SubscriptionListener> listeners = new CopyOnWriteArrayList<>();
+    @Setter
+    private IdempotencyTable idempotencyTable = IdempotencyTable.inMemory();
+    @Setter
+    private AdmissionController admissionController = AdmissionController.unlimited();
+    @Setter
+    private SubscriptionKeyFilter keyFilter = SubscriptionKeyFilter.disabled();
+
+    public void addListener(SubscriptionListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Same as {@link #upsert(CreateSubscriptionDto)}, but a retried request with the same key returns the result
+     * of the first one without upserting again. A key known only from the persisted {@link IdempotencyTable} returns
+     * the subscription as it is now.
+     */
+    public Subscription upsert(String idempotencyKey, CreateSubscriptionDto dto) {
+        if (idempotencyKey == null) {
+            return upsert(dto);
+        }
+        return idempotencyTable.execute(idempotencyKey, () -> upsert(dto));
+    }
+
+    public List<Subscription> findByUserId(Integer userId) {
+        return admissionController.execute(Operation.READ,
+                () -> RoundTripRecorder.track("findByUserId", () -> subscriptionDao.findByUserId(userId)));
+    }
 
     public Subscription upsert(CreateSubscriptionDto dto) {
+        return admissionController.execute(Operation.UPSERT, () -> RoundTripRecorder.track("upsert", () -> doUpsert(dto)));
+    }
+
+    private Subscription doUpsert(CreateSubscriptionDto dto) {
         var validationResult = createSubscriptionValidator.validate(dto);
         if (validationResult.hasErrors()) {
             throw new ValidationException(validationResult.getErrors());
         }
 
-        Subscription subscription = subscriptionDao.findByUserId(dto.getUserId()).stream()
-                .filter(existingSubscription -> existingSubscription.getName().equals(dto.getName()))
-                .filter(existingSubscription -> existingSubscription.getProvider() == Provider.findByName(dto.getProvider()))
-                .findFirst()
+        Optional<Subscription> existing = Optional.empty();
+        if (keyFilter.mightContain(dto.getUserId(), dto.getName())) {
+            var sameName = subscriptionDao.findByUserId(dto.getUserId()).stream()
+                    .filter(existingSubscription -> existingSubscription.getName().equals(dto.getName()))
+                    .toList();
+            keyFilter.recordLookup(!sameName.isEmpty());
+            existing = sameName.stream()
+                    .filter(existingSubscription -> existingSubscription.getProvider() == Provider.findByName(dto.getProvider()))
+                    .findFirst();
+        }
+        Status previousStatus = existing.map(Subscription::getStatus).orElse(null);
+        Subscription subscription = existing
                 .map(existingSubscription -> existingSubscription
                         .setExpirationDate(dto.getExpirationDate())
                         .setStatus(Status.ACTIVE))
                 .orElseGet(() -> createSubscriptionMapper.map(dto));
 
-        return subscriptionDao.upsert(subscription);
+        Subscription result;
+        try {
+            result = subscriptionDao.upsert(subscription);
+        } catch (DuplicateKeyException e) {
+            if (existing.isPresent()) {
+                throw e;
+            }
+            Subscription winner = findConflicting(dto).orElseThrow(() -> e);
+            previousStatus = winner.getStatus();
+            result = subscriptionDao.update(winner
+                    .setExpirationDate(dto.getExpirationDate())
+                    .setStatus(Status.ACTIVE));
+        }
+        keyFilter.put(result.getUserId(), result.getName());
+        notifyListeners(previousStatus, result);
+        return result;
+    }
+
+    /**
+     * A concurrent upsert of the same provider inserted the same (userId, name) first, so the row it created is
+     * updated instead. A row of another provider is a real conflict and is not taken over.
+     */
+    private Optional<Subscription> findConflicting(CreateSubscriptionDto dto) {
+        var provider = Provider.findByName(dto.getProvider());
+        return subscriptionDao.findByUserId(dto.getUserId()).stream()
+                .filter(existingSubscription -> existingSubscription.getName().equals(dto.getName()))
+                .filter(existingSubscription -> existingSubscription.getProvider() == provider)
+                .findFirst();
     }
 
     public void cancel(Integer subscriptionId) {
+        admissionController.execute(Operation.CANCEL, () -> RoundTripRecorder.track("cancel", () -> doCancel(subscriptionId)));
+    }
+
+    private void doCancel(Integer subscriptionId) {
         var subscription = subscriptionDao.findById(subscriptionId)
                 .orElseThrow(IllegalArgumentException::new);
         if (subscription.getStatus() != Status.ACTIVE) {
@@ -48,16 +128,53 @@ public class SubscriptionService {
         }
         subscription.setStatus(Status.CANCELED);
         subscriptionDao.update(subscription);
+        notifyListeners(Status.ACTIVE, subscription);
     }
 
     public void expire(Integer subscriptionId) {
-        var subscription = subscriptionDao.findById(subscriptionId)
-                .orElseThrow(IllegalArgumentException::new);
-        if (subscription.getStatus() == Status.EXPIRED) {
-            throw new SubscriptionException(String.format("Subscription %d has already expired", subscriptionId));
+        admissionController.execute(Operation.EXPIRE, () -> RoundTripRecorder.track("expire", () -> {
+            var subscription = subscriptionDao.findById(subscriptionId)
+                    .orElseThrow(IllegalArgumentException::new);
+            if (subscription.getStatus() == Status.EXPIRED) {
+                throw new SubscriptionException(String.format("Subscription %d has already expired", subscriptionId));
+            }
+            doExpire(subscription);
+        }));
+    }
+
+    /**
+     * Expires those of the given subscriptions that are still unexpired and whose expiration date has passed, with
+     * a fixed number of round trips for the whole list, and returns how many were expired.
+     * Unlike {@link #expire(Integer)} a missing, already expired or prolonged subscription is not an error.
+     */
+    public int expireDue(List<Integer> subscriptionIds) {
+        return admissionController.execute(Operation.EXPIRE,
+                () -> RoundTripRecorder.track("expireDue", () -> doExpireDue(subscriptionIds)));
+    }
+
+    private int doExpireDue(List<Integer> subscriptionIds) {
+        var now = Instant.now(clock);
+        var expired = subscriptionDao.expireDue(subscriptionIds, now);
+        for (Subscription subscription : expired) {
+            var previousStatus = subscription.getStatus();
+            subscription.setStatus(Status.EXPIRED);
+            subscription.setExpirationDate(now);
+            notifyListeners(previousStatus, subscription);
         }
+        return expired.size();
+    }
+
+    private void doExpire(Subscription subscription) {
+        var previousStatus = subscription.getStatus();
         subscription.setStatus(Status.EXPIRED);
         subscription.setExpirationDate(Instant.now(clock));
         subscriptionDao.update(subscription);
+        notifyListeners(previousStatus, subscription);
+    }
+
+    private void notifyListeners(Status previousStatus, Subscription subscription) {
+        for (SubscriptionListener listener : listeners) {
+            listener.onChange(previousStatus, subscription);
+        }
     }
 }
@@ -0,0 +1,17 @@
+package com.dmdev.snapshot;
+
+import com.dmdev.entity.Subscription;
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Subscriptions as of {@code feedOffset} of the change feed; every later change is in the feed from that offset.
+ */
+@Value
+public class SubscriptionSnapshot {
+    long feedOffset;
+    Instant createdAt;
+    List<Subscription> subscriptions;
+}
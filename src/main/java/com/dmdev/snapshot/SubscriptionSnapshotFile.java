@@ -0,0 +1,169 @@
+package com.dmdev.snapshot;
+
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.exception.SnapshotCorruptedException;
+import lombok.NoArgsConstructor;
+import lombok.SneakyThrows;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * Columnar binary snapshot file, written and read through a memory mapping. Layout (big endian):
+ * <pre>
+ * header (48 bytes): magic int, version int, row count int, dictionary size int, feed offset long,
+ *                    created at epoch millis long, body CRC32C long, header CRC32C int, reserved int
+ * body:              ids int[rows], user ids int[rows], expiration epoch seconds long[rows],
+ *                    expiration nanos int[rows], name dictionary index int[rows], provider code byte[rows],
+ *                    status code byte[rows], dictionary of (unsigned short length, UTF-8 bytes)[dictionary size]
+ * </pre>
+ * Names repeat heavily across users, so each distinct name is stored once. A file is written next to the target
+ * and atomically moved in place, so readers never see a partial snapshot; a single file is limited to 2 GiB.
+ */
+@NoArgsConstructor(access = PRIVATE)
+public final class SubscriptionSnapshotFile {
+
+    private static final int MAGIC = 0x53554253;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 48;
+    private static final int HEADER_CHECKSUM_OFFSET = 40;
+    private static final int ROW_SIZE = Integer.BYTES * 4 + Long.BYTES + 2;
+
+    @SneakyThrows
+    public static void write(Path path, SubscriptionSnapshot snapshot) {
+        var subscriptions = snapshot.getSubscriptions();
+        int rows = subscriptions.size();
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<byte[]> names = new ArrayList<>();
+        int[] nameIndexes = new int[rows];
+        long dictionaryBytes = 0;
+        for (int i = 0; i < rows; i++) {
+            var name = subscriptions.get(i).getName();
+            var index = dictionary.get(name);
+            if (index == null) {
+                index = names.size();
+                dictionary.put(name, index);
+                var encoded = name.getBytes(StandardCharsets.UTF_8);
+                names.add(encoded);
+                dictionaryBytes += Short.BYTES + encoded.length;
+            }
+            nameIndexes[i] = index;
+        }
+        long bodySize = (long) rows * ROW_SIZE + dictionaryBytes;
+        if (HEADER_SIZE + bodySize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Snapshot of " + rows + " subscriptions does not fit into a single file");
+        }
+
+        var temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (var channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + bodySize);
+            buffer.position(HEADER_SIZE);
+            subscriptions.forEach(subscription -> buffer.putInt(subscription.getId()));
+            subscriptions.forEach(subscription -> buffer.putInt(subscription.getUserId()));
+            subscriptions.forEach(subscription -> buffer.putLong(subscription.getExpirationDate().getEpochSecond()));
+            subscriptions.forEach(subscription -> buffer.putInt(subscription.getExpirationDate().getNano()));
+            for (int nameIndex : nameIndexes) {
+                buffer.putInt(nameIndex);
+            }
+            subscriptions.forEach(subscription -> buffer.put((byte) subscription.getProvider().getCode()));
+            subscriptions.forEach(subscription -> buffer.put((byte) subscription.getStatus().getCode()));
+            for (byte[] name : names) {
+                buffer.putShort((short) name.length);
+                buffer.put(name);
+            }
+
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, rows);
+            buffer.putInt(12, names.size());
+            buffer.putLong(16, snapshot.getFeedOffset());
+            buffer.putLong(24, snapshot.getCreatedAt().toEpochMilli());
+            buffer.putLong(32, checksum(buffer, HEADER_SIZE, (int) bodySize));
+            buffer.putInt(HEADER_CHECKSUM_OFFSET, (int) checksum(buffer, 0, HEADER_CHECKSUM_OFFSET));
+            buffer.force();
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a snapshot written by {@link #write}, throwing {@link SnapshotCorruptedException} if the file is
+     * truncated, of another version or fails its checksums.
+     */
+    @SneakyThrows
+    public static SubscriptionSnapshot read(Path path) {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new SnapshotCorruptedException("Unexpected snapshot size " + size + " of " + path);
+            }
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new SnapshotCorruptedException("Not a version " + VERSION + " subscription snapshot: " + path);
+            }
+            if (buffer.getInt(HEADER_CHECKSUM_OFFSET) != (int) checksum(buffer, 0, HEADER_CHECKSUM_OFFSET)) {
+                throw new SnapshotCorruptedException("Header checksum mismatch in " + path);
+            }
+            if (buffer.getLong(32) != checksum(buffer, HEADER_SIZE, (int) size - HEADER_SIZE)) {
+                throw new SnapshotCorruptedException("Body checksum mismatch in " + path);
+            }
+            int rows = buffer.getInt(8);
+            var names = readDictionary(buffer, HEADER_SIZE + rows * ROW_SIZE, buffer.getInt(12));
+
+            int userIds = HEADER_SIZE + rows * Integer.BYTES;
+            int seconds = userIds + rows * Integer.BYTES;
+            int nanos = seconds + rows * Long.BYTES;
+            int nameIndexes = nanos + rows * Integer.BYTES;
+            int providers = nameIndexes + rows * Integer.BYTES;
+            int statuses = providers + rows;
+            List<Subscription> subscriptions = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                int column = i * Integer.BYTES;
+                subscriptions.add(new Subscription(
+                        buffer.getInt(HEADER_SIZE + column),
+                        buffer.getInt(userIds + column),
+                        names[buffer.getInt(nameIndexes + column)],
+                        Provider.fromCode(buffer.get(providers + i)),
+                        Instant.ofEpochSecond(buffer.getLong(seconds + i * Long.BYTES), buffer.getInt(nanos + column)),
+                        Status.fromCode(buffer.get(statuses + i))));
+            }
+            return new SubscriptionSnapshot(buffer.getLong(16), Instant.ofEpochMilli(buffer.getLong(24)), subscriptions);
+        }
+    }
+
+    private static String[] readDictionary(ByteBuffer buffer, int position, int size) {
+        var names = new String[size];
+        var bytes = new byte[Short.MAX_VALUE * 2 + 1];
+        buffer = buffer.duplicate().position(position);
+        for (int i = 0; i < size; i++) {
+            int length = Short.toUnsignedInt(buffer.getShort());
+            buffer.get(bytes, 0, length);
+            names[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+        if (buffer.hasRemaining()) {
+            throw new SnapshotCorruptedException("Unexpected trailing bytes after the name dictionary");
+        }
+        return names;
+    }
+
+    private static long checksum(ByteBuffer buffer, int offset, int length) {
+        var crc = new CRC32C();
+        crc.update(buffer.slice(offset, length));
+        return crc.getValue();
+    }
+}
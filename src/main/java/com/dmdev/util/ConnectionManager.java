@@ -1,10 +1,24 @@
 package com.dmdev.util;
 
+import com.dmdev.exception.DeadlineExceededException;
+import com.dmdev.jdbc.RoundTripRecorder;
 import lombok.SneakyThrows;
 import lombok.experimental.UtilityClass;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @UtilityClass
 public class ConnectionManager {
@@ -13,9 +27,24 @@ public class ConnectionManager {
     private static final String USER_KEY = "db.user";
     private static final String PASSWORD_KEY = "db.password";
     private static final String DRIVER_KEY = "db.driver";
+    private static final String POOL_SIZE_KEY = "db.pool.size";
+    private static final String STATEMENT_CACHE_SIZE_KEY = "db.statement-cache.size";
+    private static final int DEFAULT_POOL_SIZE = 10;
+    private static final int DEFAULT_STATEMENT_CACHE_SIZE = 32;
+    private static final String ACQUIRE_TIMEOUT_KEY = "db.pool.acquire-timeout";
+    private static final Duration DEFAULT_ACQUIRE_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final BlockingQueue<PooledConnection> pool = new LinkedBlockingQueue<>();
+    private static final List<PooledConnection> sourceConnections = new CopyOnWriteArrayList<>();
+    private static final AtomicInteger openedCount = new AtomicInteger();
+    private static final StatementCacheStats statementCacheStats = new StatementCacheStats();
+    private static volatile int poolSize;
+    private static volatile int statementCacheSize;
+    private static volatile Duration acquireTimeout;
 
     static {
         loadDriver();
+        initConnectionPool();
     }
 
     @SneakyThrows
@@ -23,11 +52,241 @@ public class ConnectionManager {
         Class.forName(PropertiesUtil.get(DRIVER_KEY));
     }
 
-    @SneakyThrows
+    private static void initConnectionPool() {
+        poolSize = PropertiesUtil.getInt(POOL_SIZE_KEY, DEFAULT_POOL_SIZE);
+        statementCacheSize = PropertiesUtil.getInt(STATEMENT_CACHE_SIZE_KEY, DEFAULT_STATEMENT_CACHE_SIZE);
+        acquireTimeout = PropertiesUtil.getDuration(ACQUIRE_TIMEOUT_KEY, DEFAULT_ACQUIRE_TIMEOUT);
+        PropertiesUtil.onChange(POOL_SIZE_KEY, () -> setPoolSize(PropertiesUtil.getInt(POOL_SIZE_KEY, DEFAULT_POOL_SIZE)));
+        PropertiesUtil.onChange(STATEMENT_CACHE_SIZE_KEY,
+                () -> setStatementCacheSize(PropertiesUtil.getInt(STATEMENT_CACHE_SIZE_KEY, DEFAULT_STATEMENT_CACHE_SIZE)));
+        PropertiesUtil.onChange(ACQUIRE_TIMEOUT_KEY,
+                () -> acquireTimeout = PropertiesUtil.getDuration(ACQUIRE_TIMEOUT_KEY, DEFAULT_ACQUIRE_TIMEOUT));
+    }
+
+    /**
+     * Takes an idle pooled connection, opens a new one while the pool is below its size, or waits for a release up to
+     * {@code db.pool.acquire-timeout}. Closing the returned connection gives it back to the pool; the returned
+     * connection is then closed for good, later calls other than {@code close} and {@code isClosed} fail.
+     */
     public static Connection get() {
+        return get(acquireTimeout);
+    }
+
+    /**
+     * Same as {@link #get()}, but gives up with a {@link DeadlineExceededException} when no connection is released in time.
+     */
+    public static Connection get(Duration acquireTimeout) {
+        return RoundTripRecorder.instrument(checkOut(acquire(acquireTimeout)));
+    }
+
+    @SneakyThrows
+    private static PooledConnection acquire(Duration acquireTimeout) {
+        var pooled = pollLive();
+        if (pooled != null) {
+            return pooled;
+        }
+        if (reserve()) {
+            return openPooled();
+        }
+        long deadline = System.nanoTime() + acquireTimeout.toNanos();
+        do {
+            pooled = pool.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } while (pooled != null && pooled.retired.get());
+        if (pooled == null) {
+            throw new DeadlineExceededException(String.format("No pooled connection available within %s", acquireTimeout));
+        }
+        return pooled;
+    }
+
+    /**
+     * Skips connections retired by {@link #closePool()} while they were being released.
+     */
+    private static PooledConnection pollLive() {
+        PooledConnection pooled;
+        do {
+            pooled = pool.poll();
+        } while (pooled != null && pooled.retired.get());
+        return pooled;
+    }
+
+    /**
+     * Opens connections until at least {@code count} are open (bounded by the pool size) and returns how many were opened.
+     */
+    public static int prefill(int count) {
+        int opened = 0;
+        while (openedCount.get() < count && reserve()) {
+            pool.add(openPooled());
+            opened++;
+        }
+        return opened;
+    }
+
+    public static int getPoolSize() {
+        return poolSize;
+    }
+
+    /**
+     * Resizes the pool. Growing lets the next acquisitions open connections; shrinking closes idle connections
+     * right away and busy ones once they are released.
+     */
+    @SneakyThrows
+    public static void setPoolSize(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Pool size must be positive");
+        }
+        poolSize = size;
+        PooledConnection idle;
+        while (openedCount.get() > poolSize && (idle = pool.poll()) != null) {
+            retire(idle);
+        }
+    }
+
+    public static int getOpenedCount() {
+        return openedCount.get();
+    }
+
+    public static int getIdleCount() {
+        return pool.size();
+    }
+
+    public static int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    /**
+     * Sets how many prepared statements each pooled connection keeps, {@code 0} switches caching off. Caches shrink
+     * to the new size on their next prepare.
+     */
+    public static void setStatementCacheSize(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Statement cache size must not be negative");
+        }
+        statementCacheSize = size;
+    }
+
+    public static StatementCacheStats getStatementCacheStats() {
+        return statementCacheStats;
+    }
+
+    /**
+     * Closes every connection, including those still in use: their later release does not return them to the pool.
+     */
+    public static void closePool() {
+        for (PooledConnection pooled : sourceConnections) {
+            retire(pooled);
+        }
+        pool.clear();
+    }
+
+    private static boolean reserve() {
+        int opened;
+        do {
+            opened = openedCount.get();
+            if (opened >= poolSize) {
+                return false;
+            }
+        } while (!openedCount.compareAndSet(opened, opened + 1));
+        return true;
+    }
+
+    private static PooledConnection openPooled() {
+        Connection connection;
+        try {
+            connection = open();
+        } catch (RuntimeException e) {
+            openedCount.decrementAndGet();
+            throw e;
+        }
+        var pooled = new PooledConnection(connection,
+                new StatementCache(connection, () -> statementCacheSize, statementCacheStats));
+        sourceConnections.add(pooled);
+        return pooled;
+    }
+
+    /**
+     * Wraps the pooled connection for one checkout, with its own closed flag so that closing it twice releases the
+     * pooled connection only once and a closed checkout cannot be used while someone else holds the connection.
+     */
+    private static Connection checkOut(PooledConnection pooled) {
+        var closed = new AtomicBoolean();
+        var connection = pooled.connection;
+        return (Connection) Proxy.newProxyInstance(ConnectionManager.class.getClassLoader(), new Class[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close")) {
+                        if (closed.compareAndSet(false, true)) {
+                            release(pooled);
+                        }
+                        return null;
+                    }
+                    if (method.getName().equals("isClosed")) {
+                        return closed.get() || connection.isClosed();
+                    }
+                    if (closed.get() && method.getDeclaringClass() != Object.class) {
+                        throw new SQLException("Connection has been returned to the pool", "08003");
+                    }
+                    if (method.getName().equals("prepareStatement") && args.length <= 2
+                            && (args.length == 1 || args[1] instanceof Integer)) {
+                        return pooled.statementCache.prepare((String) args[0],
+                                args.length == 1 ? Statement.NO_GENERATED_KEYS : (Integer) args[1]);
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    @SneakyThrows
+    private static void release(PooledConnection pooled) {
+        if (pooled.retired.get()) {
+            return;
+        }
+        if (pooled.connection.isClosed() || openedCount.get() > poolSize) {
+            retire(pooled);
+            return;
+        }
+        if (!pooled.connection.getAutoCommit()) {
+            pooled.connection.rollback();
+            pooled.connection.setAutoCommit(true);
+        }
+        pool.add(pooled);
+    }
+
+    /**
+     * Closes the connection and gives up its slot, only once however often it is called.
+     */
+    @SneakyThrows
+    private static void retire(PooledConnection pooled) {
+        if (!pooled.retired.compareAndSet(false, true)) {
+            return;
+        }
+        sourceConnections.remove(pooled);
+        openedCount.decrementAndGet();
+        try {
+            pooled.statementCache.closeAll();
+        } finally {
+            pooled.connection.close();
+        }
+    }
+
+    @SneakyThrows
+    private static Connection open() {
         return DriverManager.getConnection(
                 PropertiesUtil.get(URL_KEY),
                 PropertiesUtil.get(USER_KEY),
                 PropertiesUtil.get(PASSWORD_KEY));
     }
+
+    private static class PooledConnection {
+
+        private final Connection connection;
+        private final StatementCache statementCache;
+        private final AtomicBoolean retired = new AtomicBoolean();
+
+        private PooledConnection(Connection connection, StatementCache statementCache) {
+            this.connection = connection;
+            this.statementCache = statementCache;
+        }
+    }
 }
@@ -3,25 +3,216 @@ package com.dmdev.util;
 import lombok.SneakyThrows;
 import lombok.experimental.UtilityClass;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.regex.Pattern;
 
+/**
+ * Layered configuration. A key is looked up, from highest to lowest precedence, in the {@code -D} system
+ * properties, the environment ({@code db.pool.size} becomes {@code DB_POOL_SIZE}), the external file named by
+ * {@code -Dconfig.file} or {@code CONFIG_FILE} and the classpath application.properties. {@link #reload()}
+ * re-reads the external file and runs the listeners of every key whose value changed, which is how tunables like
+ * the pool size apply without a restart.
+ */
 @UtilityClass
 public class PropertiesUtil {
 
-    private static final Properties properties = new Properties();
+    private static final System.Logger log = System.getLogger(PropertiesUtil.class.getName());
+    private static final String CONFIG_FILE_KEY = "config.file";
+    private static final Pattern DURATION = Pattern.compile("(\\d+)\\s*(ms|s|m|h|d)");
 
-    static {
-        loadProperties();
-    }
+    private static final Map<String, List<Runnable>> listeners = new ConcurrentHashMap<>();
+    private static final Map<String, String> listenedValues = new ConcurrentHashMap<>();
+    private static final Properties classpathProperties = loadClasspathProperties();
+    private static volatile Properties fileProperties = loadFileProperties();
+    private static ScheduledExecutorService reloader;
 
     @SneakyThrows
-    private static void loadProperties() {
+    private static Properties loadClasspathProperties() {
+        var properties = new Properties();
         try (var inputStream = PropertiesUtil.class.getClassLoader().getResourceAsStream("application.properties")) {
             properties.load(inputStream);
         }
+        return properties;
+    }
+
+    @SneakyThrows
+    private static Properties loadFileProperties() {
+        var properties = new Properties();
+        var path = getConfigFile();
+        if (path != null && Files.exists(path)) {
+            try (var reader = Files.newBufferedReader(path)) {
+                properties.load(reader);
+            }
+        }
+        return properties;
     }
 
     public static String get(String key) {
-        return properties.getProperty(key);
+        var value = System.getProperty(key);
+        if (value == null) {
+            value = System.getenv(toEnvironmentName(key));
+        }
+        if (value == null) {
+            value = fileProperties.getProperty(key);
+        }
+        return value == null ? classpathProperties.getProperty(key) : value;
+    }
+
+    public static int getInt(String key, int defaultValue) {
+        return parse(key, defaultValue, Integer::parseInt);
+    }
+
+    public static long getLong(String key, long defaultValue) {
+        return parse(key, defaultValue, Long::parseLong);
+    }
+
+    public static double getDouble(String key, double defaultValue) {
+        return parse(key, defaultValue, Double::parseDouble);
+    }
+
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        return parse(key, defaultValue, value -> {
+            if (!value.equalsIgnoreCase("true") && !value.equalsIgnoreCase("false")) {
+                throw new IllegalArgumentException();
+            }
+            return Boolean.parseBoolean(value);
+        });
+    }
+
+    /**
+     * Accepts a number with a unit ({@code 500ms}, {@code 30s}, {@code 5m}, {@code 1h}, {@code 7d}) or an ISO-8601
+     * duration ({@code PT30S}).
+     */
+    public static Duration getDuration(String key, Duration defaultValue) {
+        return parse(key, defaultValue, PropertiesUtil::parseDuration);
+    }
+
+    /**
+     * Runs the listener on every {@link #reload()} that changes the value of the key.
+     */
+    public static void onChange(String key, Runnable listener) {
+        listenedValues.computeIfAbsent(key, k -> Objects.toString(get(k), ""));
+        listeners.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    /**
+     * Re-reads the external file and notifies the listeners of changed keys. A listener that fails is logged and
+     * does not stop the others.
+     */
+    public static synchronized void reload() {
+        fileProperties = loadFileProperties();
+        listeners.forEach((key, keyListeners) -> {
+            var value = Objects.toString(get(key), "");
+            if (value.equals(listenedValues.put(key, value))) {
+                return;
+            }
+            for (Runnable listener : keyListeners) {
+                try {
+                    listener.run();
+                } catch (RuntimeException e) {
+                    log.log(System.Logger.Level.WARNING, "Failed to apply new value of " + key, e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Reloads whenever the external file has been modified, checking every {@code interval}.
+     */
+    public static synchronized void startReloading(Duration interval) {
+        if (reloader != null) {
+            return;
+        }
+        reloader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "config-reloader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        var lastModified = new long[]{lastModified()};
+        reloader.scheduleWithFixedDelay(() -> {
+            long modified = lastModified();
+            if (modified != lastModified[0]) {
+                lastModified[0] = modified;
+                reload();
+            }
+        }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public static synchronized void stopReloading() {
+        if (reloader != null) {
+            reloader.shutdownNow();
+            reloader = null;
+        }
+    }
+
+    static String toEnvironmentName(String key) {
+        return key.replace('.', '_').replace('-', '_').toUpperCase(Locale.ROOT);
+    }
+
+    static Duration parseDuration(String value) {
+        var trimmed = value.trim();
+        if (trimmed.startsWith("P") || trimmed.startsWith("p")) {
+            try {
+                return Duration.parse(trimmed);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+        var matcher = DURATION.matcher(trimmed.toLowerCase(Locale.ROOT));
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException();
+        }
+        long amount = Long.parseLong(matcher.group(1));
+        return switch (matcher.group(2)) {
+            case "ms" -> Duration.ofMillis(amount);
+            case "s" -> Duration.ofSeconds(amount);
+            case "m" -> Duration.ofMinutes(amount);
+            case "h" -> Duration.ofHours(amount);
+            default -> Duration.ofDays(amount);
+        };
+    }
+
+    private static <T> T parse(String key, T defaultValue, Function<String, T> parser) {
+        var value = get(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return parser.apply(value.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format("Invalid value '%s' of %s", value, key), e);
+        }
+    }
+
+    private static Path getConfigFile() {
+        var file = System.getProperty(CONFIG_FILE_KEY);
+        if (file == null) {
+            file = System.getenv(toEnvironmentName(CONFIG_FILE_KEY));
+        }
+        return file == null ? null : Path.of(file);
+    }
+
+    private static long lastModified() {
+        var path = getConfigFile();
+        try {
+            return path == null || !Files.exists(path) ? 0 : Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
     }
 }
@@ -0,0 +1,164 @@
+package com.dmdev.util;
+
+import lombok.Value;
+import org.postgresql.PGStatement;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.IntSupplier;
+
+/**
+ * LRU cache of the prepared statements of one pooled connection. Closing a statement handed out by
+ * {@link #prepare} resets it (open result set, parameters, pending batch, fetch size, query timeout and max rows)
+ * and keeps it for the next prepare of the same SQL, or evicts it if the reset fails; an evicted statement is closed,
+ * or once it is released if it is still in use. A statement prepared again while its cached copy is in use is not
+ * cached. On PostgreSQL cached statements are prepared server-side from their first execution.
+ */
+class StatementCache {
+
+    private final Connection connection;
+    private final IntSupplier capacity;
+    private final StatementCacheStats stats;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    StatementCache(Connection connection, IntSupplier capacity, StatementCacheStats stats) {
+        this.connection = connection;
+        this.capacity = capacity;
+        this.stats = stats;
+    }
+
+    synchronized PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        int maxSize = capacity.getAsInt();
+        if (maxSize <= 0) {
+            closeAll();
+            return connection.prepareStatement(sql, autoGeneratedKeys);
+        }
+        var key = new Key(sql, autoGeneratedKeys);
+        var entry = entries.get(key);
+        if (entry != null && !entry.inUse) {
+            stats.onHit();
+            entry.inUse = true;
+            return entry.proxy;
+        }
+        stats.onMiss();
+        var statement = connection.prepareStatement(sql, autoGeneratedKeys);
+        if (entry != null) {
+            return statement;
+        }
+        entry = new Entry(key, statement);
+        entries.put(key, entry);
+        evictOver(maxSize);
+        return entry.proxy;
+    }
+
+    /**
+     * Closes every cached statement, the connection is being closed or caching was switched off.
+     */
+    synchronized void closeAll() throws SQLException {
+        for (Entry entry : entries.values()) {
+            evict(entry);
+        }
+        entries.clear();
+    }
+
+    private synchronized void release(Entry entry) throws SQLException {
+        entry.inUse = false;
+        if (entry.evicted) {
+            entry.statement.close();
+            return;
+        }
+        try {
+            reset(entry);
+        } catch (SQLException e) {
+            entries.remove(entry.key);
+            evict(entry);
+        }
+    }
+
+    private static void reset(Entry entry) throws SQLException {
+        var statement = entry.statement;
+        var resultSet = statement.getResultSet();
+        if (resultSet != null) {
+            resultSet.close();
+        }
+        statement.clearParameters();
+        statement.clearBatch();
+        if (statement.getFetchSize() != entry.fetchSize) {
+            statement.setFetchSize(entry.fetchSize);
+        }
+        if (statement.getQueryTimeout() != entry.queryTimeout) {
+            statement.setQueryTimeout(entry.queryTimeout);
+        }
+        if (statement.getMaxRows() != entry.maxRows) {
+            statement.setMaxRows(entry.maxRows);
+        }
+    }
+
+    private void evictOver(int maxSize) throws SQLException {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > maxSize && iterator.hasNext()) {
+            var eldest = iterator.next();
+            iterator.remove();
+            evict(eldest);
+        }
+    }
+
+    private void evict(Entry entry) throws SQLException {
+        stats.onEviction();
+        entry.evicted = true;
+        if (!entry.inUse) {
+            entry.statement.close();
+        }
+    }
+
+    @Value
+    private static class Key {
+        String sql;
+        int autoGeneratedKeys;
+    }
+
+    private class Entry {
+
+        private final Key key;
+        private final PreparedStatement statement;
+        private final PreparedStatement proxy;
+        private final int fetchSize;
+        private final int queryTimeout;
+        private final int maxRows;
+        private boolean inUse = true;
+        private boolean evicted;
+
+        private Entry(Key key, PreparedStatement statement) throws SQLException {
+            this.key = key;
+            this.statement = statement;
+            this.fetchSize = statement.getFetchSize();
+            this.queryTimeout = statement.getQueryTimeout();
+            this.maxRows = statement.getMaxRows();
+            if (statement.isWrapperFor(PGStatement.class)) {
+                statement.unwrap(PGStatement.class).setPrepareThreshold(1);
+            }
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(StatementCache.class.getClassLoader(),
+                    new Class[]{PreparedStatement.class}, (proxy, method, args) -> {
+                        if (method.getName().equals("close")) {
+                            if (inUse) {
+                                release(this);
+                            }
+                            return null;
+                        }
+                        if (method.getName().equals("isClosed")) {
+                            return !inUse;
+                        }
+                        try {
+                            return method.invoke(statement, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.dmdev.util;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hits, misses and evictions of the prepared statement caches of all pooled connections.
+ */
+public class StatementCacheStats {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    void onHit() {
+        hits.increment();
+    }
+
+    void onMiss() {
+        misses.increment();
+    }
+
+    void onEviction() {
+        evictions.increment();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+}
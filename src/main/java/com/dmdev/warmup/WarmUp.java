@@ -0,0 +1,94 @@
+package com.dmdev.warmup;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.dto.CreateSubscriptionDto;
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.mapper.CreateSubscriptionMapper;
+import com.dmdev.util.ConnectionManager;
+import com.dmdev.validator.CreateSubscriptionValidator;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Startup warm-up: opens the minimum pool connections, prepares every DAO statement on them and runs
+ * a synthetic workload through the validator, mapper and DAO so the hot paths are JIT compiled before real traffic.
+ */
+@RequiredArgsConstructor
+public class WarmUp {
+
+    private static final System.Logger LOGGER = System.getLogger(WarmUp.class.getName());
+
+    private final SubscriptionDao subscriptionDao;
+    private final CreateSubscriptionMapper createSubscriptionMapper;
+    private final CreateSubscriptionValidator createSubscriptionValidator;
+    private final WarmUpConfig config;
+    private volatile WarmUpReport report;
+
+    public boolean isReady() {
+        return report != null;
+    }
+
+    public synchronized WarmUpReport run() {
+        if (report != null) {
+            return report;
+        }
+        long start = System.nanoTime();
+        int connectionsOpened = ConnectionManager.prefill(config.getMinConnections());
+        int statementsPrepared = prepareStatements();
+        for (int i = 0; i < config.getIterations(); i++) {
+            runIteration(i);
+        }
+        report = new WarmUpReport(connectionsOpened, statementsPrepared, config.getIterations(),
+                Duration.ofNanos(System.nanoTime() - start));
+        LOGGER.log(System.Logger.Level.INFO, "Service is ready: {0}", report);
+        return report;
+    }
+
+    private int prepareStatements() {
+        List<Connection> connections = new ArrayList<>();
+        int prepared = 0;
+        try {
+            int count = Math.min(config.getMinConnections(), ConnectionManager.getPoolSize());
+            for (int i = 0; i < count; i++) {
+                var connection = ConnectionManager.get();
+                connections.add(connection);
+                prepared += subscriptionDao.prepareStatements(connection);
+            }
+        } finally {
+            connections.forEach(this::close);
+        }
+        return prepared;
+    }
+
+    @SneakyThrows
+    private void close(Connection connection) {
+        connection.close();
+    }
+
+    private void runIteration(int iteration) {
+        var dto = CreateSubscriptionDto.builder()
+                .userId(config.getSyntheticUserId())
+                .name("warmup-" + iteration)
+                .provider(Provider.values()[iteration % Provider.values().length].name())
+                .expirationDate(Instant.now().plus(1, ChronoUnit.DAYS))
+                .build();
+        createSubscriptionValidator.validate(dto);
+        var subscription = createSubscriptionMapper.map(dto);
+
+        subscriptionDao.findById(config.getSyntheticUserId());
+        subscriptionDao.findByUserId(config.getSyntheticUserId());
+        if (config.isWrites()) {
+            subscriptionDao.insert(subscription);
+            subscriptionDao.update(subscription.setStatus(Status.CANCELED));
+            subscriptionDao.delete(subscription.getId());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.dmdev.warmup;
+
+import com.dmdev.util.PropertiesUtil;
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class WarmUpConfig {
+
+    private static final String MIN_CONNECTIONS_KEY = "warmup.min-connections";
+    private static final String ITERATIONS_KEY = "warmup.iterations";
+    private static final String WRITES_KEY = "warmup.writes";
+
+    @Builder.Default
+    int minConnections = 2;
+    @Builder.Default
+    int iterations = 2_000;
+    /**
+     * Whether the workload inserts, updates and deletes synthetic subscriptions of {@link #syntheticUserId}.
+     */
+    @Builder.Default
+    boolean writes = false;
+    @Builder.Default
+    int syntheticUserId = -1;
+
+    public static WarmUpConfig fromProperties() {
+        var defaults = WarmUpConfig.builder().build();
+        return WarmUpConfig.builder()
+                .minConnections(PropertiesUtil.getInt(MIN_CONNECTIONS_KEY, defaults.getMinConnections()))
+                .iterations(PropertiesUtil.getInt(ITERATIONS_KEY, defaults.getIterations()))
+                .writes(PropertiesUtil.getBoolean(WRITES_KEY, defaults.isWrites()))
+                .build();
+    }
+}
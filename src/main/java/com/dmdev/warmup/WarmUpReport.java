@@ -0,0 +1,13 @@
+package com.dmdev.warmup;
+
+import lombok.Value;
+
+import java.time.Duration;
+
+@Value
+public class WarmUpReport {
+    int connectionsOpened;
+    int statementsPrepared;
+    int iterations;
+    Duration elapsed;
+}
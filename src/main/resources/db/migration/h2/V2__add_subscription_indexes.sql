@@ -0,0 +1,3 @@
+CREATE INDEX IF NOT EXISTS subscription_user_id_idx ON subscription (user_id);
+
+CREATE INDEX IF NOT EXISTS subscription_status_expiration_date_idx ON subscription (status, expiration_date);
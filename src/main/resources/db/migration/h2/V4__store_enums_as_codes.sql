@@ -0,0 +1,23 @@
+ALTER TABLE subscription ADD COLUMN provider_code SMALLINT;
+
+ALTER TABLE subscription ADD COLUMN status_code SMALLINT;
+
+UPDATE subscription
+SET provider_code = CASE provider WHEN 'GOOGLE' THEN 0 WHEN 'APPLE' THEN 1 END,
+    status_code = CASE status WHEN 'ACTIVE' THEN 0 WHEN 'CANCELED' THEN 1 WHEN 'EXPIRED' THEN 2 END;
+
+DROP INDEX IF EXISTS subscription_status_expiration_date_idx;
+
+ALTER TABLE subscription DROP COLUMN provider;
+
+ALTER TABLE subscription DROP COLUMN status;
+
+ALTER TABLE subscription ALTER COLUMN provider_code RENAME TO provider;
+
+ALTER TABLE subscription ALTER COLUMN status_code RENAME TO status;
+
+ALTER TABLE subscription ALTER COLUMN provider SET NOT NULL;
+
+ALTER TABLE subscription ALTER COLUMN status SET NOT NULL;
+
+CREATE INDEX IF NOT EXISTS subscription_status_expiration_date_idx ON subscription (status, expiration_date);
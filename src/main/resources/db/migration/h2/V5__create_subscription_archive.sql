@@ -0,0 +1,12 @@
+CREATE TABLE IF NOT EXISTS subscription_archive
+(
+    id INT PRIMARY KEY ,
+    user_id INT NOT NULL ,
+    name VARCHAR(64) NOT NULL ,
+    provider SMALLINT NOT NULL ,
+    expiration_date TIMESTAMP(9) NOT NULL ,
+    status SMALLINT NOT NULL ,
+    archived_at TIMESTAMP(9) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS subscription_archive_user_id_idx ON subscription_archive (user_id);
@@ -0,0 +1,10 @@
+CREATE TABLE IF NOT EXISTS subscription
+(
+    id SERIAL PRIMARY KEY ,
+    user_id INT NOT NULL ,
+    name VARCHAR(64) NOT NULL ,
+    provider VARCHAR(16) NOT NULL ,
+    expiration_date TIMESTAMP NOT NULL ,
+    status VARCHAR(16) NOT NULL ,
+    UNIQUE (user_id, name)
+);
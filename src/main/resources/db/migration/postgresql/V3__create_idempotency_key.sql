@@ -0,0 +1,8 @@
+CREATE TABLE IF NOT EXISTS idempotency_key
+(
+    idempotency_key VARCHAR(128) PRIMARY KEY ,
+    subscription_id INT NOT NULL ,
+    expires_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idempotency_key_expires_at_idx ON idempotency_key (expires_at);
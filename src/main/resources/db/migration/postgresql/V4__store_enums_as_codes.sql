@@ -0,0 +1,5 @@
+ALTER TABLE subscription
+    ALTER COLUMN provider TYPE SMALLINT USING CASE provider WHEN 'GOOGLE' THEN 0 WHEN 'APPLE' THEN 1 END;
+
+ALTER TABLE subscription
+    ALTER COLUMN status TYPE SMALLINT USING CASE status WHEN 'ACTIVE' THEN 0 WHEN 'CANCELED' THEN 1 WHEN 'EXPIRED' THEN 2 END;
@@ -0,0 +1,150 @@
+package com.dmdev.admission;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.dmdev.exception.CircuitBreakerOpenException;
+import com.dmdev.exception.DeadlineExceededException;
+import com.dmdev.exception.OverloadException;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class AdmissionControllerTest {
+
+  private final AdmissionController admissionController = new AdmissionController(AdmissionConfig.builder()
+      .initialLimit(4)
+      .minLimit(1)
+      .maxLimit(8)
+      .latencyThreshold(Duration.ofSeconds(10))
+      .build());
+
+  @Test
+  void executeRejectsOverLimitByPriority() throws Exception {
+    CountDownLatch started = new CountDownLatch(2);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      for (int i = 0; i < 2; i++) {
+        executor.submit(() -> admissionController.execute(Operation.UPSERT, () -> {
+          started.countDown();
+          await(release);
+        }));
+      }
+      started.await(5, TimeUnit.SECONDS);
+
+      assertThrows(OverloadException.class, () -> admissionController.execute(Operation.EXPIRE, () -> { }));
+      assertThat(admissionController.execute(Operation.READ, () -> "read")).isEqualTo("read");
+      assertThat(admissionController.getRejectedCount(Operation.EXPIRE)).isEqualTo(1);
+      assertThat(admissionController.getRejectedCount(Operation.READ)).isZero();
+    } finally {
+      release.countDown();
+      executor.shutdown();
+      executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+    assertThat(admissionController.getInFlight()).isZero();
+  }
+
+  @Test
+  void executeShedsUpsertBeforeRead() throws Exception {
+    CountDownLatch started = new CountDownLatch(3);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      for (int i = 0; i < 3; i++) {
+        executor.submit(() -> admissionController.execute(Operation.READ, () -> {
+          started.countDown();
+          await(release);
+        }));
+      }
+      started.await(5, TimeUnit.SECONDS);
+
+      assertThrows(OverloadException.class, () -> admissionController.execute(Operation.UPSERT, () -> { }));
+      assertThat(admissionController.execute(Operation.READ, () -> "read")).isEqualTo("read");
+      assertThat(admissionController.getRejectedCount(Operation.UPSERT)).isEqualTo(1);
+      assertThat(admissionController.getRejectedCount(Operation.READ)).isZero();
+    } finally {
+      release.countDown();
+      executor.shutdown();
+      executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+  }
+
+  @Test
+  void executeShrinksLimitOnDatabaseFailures() {
+    for (int i = 0; i < 3; i++) {
+      assertThrows(IllegalStateException.class, () -> admissionController.execute(Operation.READ, () -> {
+        throw new IllegalStateException(new SQLException("timeout"));
+      }));
+    }
+
+    assertThat(admissionController.getLimit()).isEqualTo(2);
+  }
+
+  @Test
+  void executeShrinksLimitOnDeadlineAndOpenBreaker() {
+    AdmissionController controller = new AdmissionController(AdmissionConfig.builder()
+        .initialLimit(2)
+        .minLimit(1)
+        .maxLimit(8)
+        .latencyThreshold(Duration.ofSeconds(10))
+        .build());
+
+    assertThrows(DeadlineExceededException.class, () -> controller.execute(Operation.READ, () -> {
+      throw new DeadlineExceededException("pool exhausted");
+    }));
+    assertThat(controller.getLimit()).isEqualTo(1);
+    assertThrows(CircuitBreakerOpenException.class, () -> controller.execute(Operation.READ, () -> {
+      throw new CircuitBreakerOpenException("open");
+    }));
+
+    assertThat(controller.getLimit()).isEqualTo(1);
+  }
+
+  @Test
+  void executeShrinksLimitOnSlowCalls() {
+    AdmissionController controller = new AdmissionController(AdmissionConfig.builder()
+        .initialLimit(10)
+        .latencyThreshold(Duration.ZERO)
+        .build());
+
+    controller.execute(Operation.READ, () -> "slow");
+
+    assertThat(controller.getLimit()).isEqualTo(9);
+  }
+
+  @Test
+  void executeKeepsLimitOnBusinessFailures() {
+    assertThrows(IllegalArgumentException.class, () -> admissionController.execute(Operation.CANCEL, () -> {
+      throw new IllegalArgumentException();
+    }));
+
+    assertThat(admissionController.getLimit()).isEqualTo(4);
+  }
+
+  @Test
+  void executeGrowsLimitWhenUtilized() {
+    AdmissionController controller = new AdmissionController(AdmissionConfig.builder()
+        .initialLimit(2)
+        .maxLimit(3)
+        .build());
+
+    for (int i = 0; i < 5; i++) {
+      controller.execute(Operation.READ, () -> controller.execute(Operation.READ, () -> "nested"));
+    }
+
+    assertThat(controller.getLimit()).isEqualTo(3);
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
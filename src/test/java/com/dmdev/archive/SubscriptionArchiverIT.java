@@ -0,0 +1,94 @@
+package com.dmdev.archive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dmdev.cache.SubscriptionCache;
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.feed.ChangeFeedLog;
+import com.dmdev.integration.IntegrationTestBase;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SubscriptionArchiverIT extends IntegrationTestBase {
+
+  private final Clock clock = Clock.fixed(Instant.now().truncatedTo(ChronoUnit.MICROS), ZoneId.systemDefault());
+  private final SubscriptionDao subscriptionDao = SubscriptionDao.getInstance();
+  private final SubscriptionArchiver archiver =
+      new SubscriptionArchiver(subscriptionDao, clock, Duration.ofDays(30), 2, Duration.ZERO);
+
+  @Test
+  void archiveMovesOnlyTerminalSubscriptionsOlderThanRetention() {
+    Subscription expired = subscriptionDao.insert(getSubscription("expired", Status.EXPIRED, 40));
+    Subscription canceled = subscriptionDao.insert(getSubscription("canceled", Status.CANCELED, 31));
+    Subscription oldActive = subscriptionDao.insert(getSubscription("old active", Status.ACTIVE, 40));
+    Subscription recentlyExpired = subscriptionDao.insert(getSubscription("recently expired", Status.EXPIRED, 10));
+    Subscription alsoExpired = subscriptionDao.insert(getSubscription("also expired", Status.EXPIRED, 60));
+
+    int actualResult = archiver.archive();
+
+    assertThat(actualResult).isEqualTo(3);
+    assertThat(subscriptionDao.findByUserId(1))
+        .extracting(Subscription::getId)
+        .containsExactlyInAnyOrder(oldActive.getId(), recentlyExpired.getId());
+    assertThat(subscriptionDao.findById(expired.getId())).isEmpty();
+    assertThat(subscriptionDao.findByIdIncludingArchived(expired.getId())).contains(expired);
+    assertThat(subscriptionDao.findByUserIdIncludingArchived(1))
+        .containsExactlyInAnyOrder(expired, canceled, oldActive, recentlyExpired, alsoExpired);
+  }
+
+  @Test
+  void archivedSubscriptionsAreDroppedFromCacheAndAfterRestore(@TempDir Path directory) {
+    Subscription expired = subscriptionDao.insert(getSubscription("expired", Status.EXPIRED, 40));
+    Subscription active = subscriptionDao.insert(getSubscription("active", Status.ACTIVE, -10));
+    var cache = new SubscriptionCache(subscriptionDao, clock);
+    cache.restore(directory.resolve("none.snapshot"), null);
+    Path snapshot = directory.resolve("subscriptions.snapshot");
+    try (var changeFeed = new ChangeFeedLog(directory.resolve("feed"), 16, 4)) {
+      cache.writeSnapshot(snapshot, changeFeed);
+      archiver.addListener(changeFeed);
+      archiver.addListener(cache);
+
+      archiver.archive();
+
+      assertThat(cache.findById(expired.getId())).isEmpty();
+      assertThat(cache.findByUserId(1)).containsExactly(active);
+      assertThat(changeFeed.reader(0).poll(10, event -> {
+        assertThat(event.getSubscriptionId()).isEqualTo(expired.getId());
+        assertThat(event.getPreviousStatus()).isEqualTo(Status.EXPIRED);
+        assertThat(event.getStatus()).isNull();
+      })).isEqualTo(1);
+
+      var restored = new SubscriptionCache(subscriptionDao, clock);
+      assertThat(restored.restore(snapshot, changeFeed)).isTrue();
+      assertThat(restored.findById(expired.getId())).isEmpty();
+      assertThat(restored.findByUserId(1)).containsExactly(active);
+    }
+  }
+
+  @Test
+  void archiveWithNothingDue() {
+    subscriptionDao.insert(getSubscription("active", Status.ACTIVE, -10));
+
+    assertThat(archiver.archive()).isZero();
+    assertThat(subscriptionDao.findByUserId(1)).hasSize(1);
+  }
+
+  private Subscription getSubscription(String name, Status status, int expiredDaysAgo) {
+    return Subscription.builder()
+        .userId(1)
+        .name(name)
+        .provider(Provider.GOOGLE)
+        .expirationDate(clock.instant().minus(expiredDaysAgo, ChronoUnit.DAYS))
+        .status(status)
+        .build();
+  }
+}
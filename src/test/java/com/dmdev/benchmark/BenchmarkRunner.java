@@ -0,0 +1,32 @@
+package com.dmdev.benchmark;
+
+import java.util.Locale;
+import java.util.concurrent.Callable;
+
+/**
+ * Minimal wall-clock benchmark harness for the manual benchmarks in this package.
+ * Run one with {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=<benchmark class>}.
+ */
+final class BenchmarkRunner {
+
+  private static volatile Object blackhole;
+
+  private BenchmarkRunner() {
+  }
+
+  static double measure(String name, int warmupIterations, int iterations, int operationsPerIteration,
+                        Callable<?> operation) throws Exception {
+    for (int i = 0; i < warmupIterations; i++) {
+      blackhole = operation.call();
+    }
+    long best = Long.MAX_VALUE;
+    for (int i = 0; i < iterations; i++) {
+      long start = System.nanoTime();
+      blackhole = operation.call();
+      best = Math.min(best, System.nanoTime() - start);
+    }
+    double nanosPerOperation = (double) best / operationsPerIteration;
+    System.out.printf(Locale.ROOT, "%-40s %12.1f ns/op%n", name, nanosPerOperation);
+    return nanosPerOperation;
+  }
+}
@@ -0,0 +1,104 @@
+package com.dmdev.benchmark;
+
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.migration.Dialect;
+import com.dmdev.util.ConnectionManager;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares enum columns stored by name ({@code VARCHAR(16)}) with the same columns stored by code
+ * ({@code SMALLINT}): batched writes, full reads and the size of the {@code (status, expiration_date)} index.
+ * Runs against the database of {@code application.properties}, override it with {@code -Ddb.url=...} to measure
+ * PostgreSQL. On H2 the size is the whole table including its indexes and is only reported for a file database,
+ * e.g. {@code -Ddb.url=jdbc:h2:file:/tmp/enum-storage}.
+ */
+public class EnumStorageBenchmark {
+
+  private static final int ROWS = 200_000;
+  private static final int BATCH_SIZE = 1000;
+
+  public static void main(String[] args) throws Exception {
+    try (Connection connection = ConnectionManager.get()) {
+      Dialect dialect = Dialect.of(connection);
+      for (boolean byCode : new boolean[]{false, true}) {
+        String table = byCode ? "enum_code_benchmark" : "enum_name_benchmark";
+        String type = byCode ? "SMALLINT" : "VARCHAR(16)";
+        execute(connection, "DROP TABLE IF EXISTS " + table);
+        execute(connection, "CREATE TABLE " + table + " (id INT PRIMARY KEY, provider " + type
+            + " NOT NULL, expiration_date TIMESTAMP NOT NULL, status " + type + " NOT NULL)");
+        execute(connection, "CREATE INDEX " + table + "_idx ON " + table + " (status, expiration_date)");
+        try {
+          String label = byCode ? "by code" : "by name";
+          BenchmarkRunner.measure("write " + label, 0, 1, ROWS, () -> write(connection, table, byCode));
+          BenchmarkRunner.measure("read " + label, 3, 5, ROWS, () -> read(connection, table, byCode));
+          System.out.printf("%s size: %d bytes%n", label, size(connection, dialect, table));
+        } finally {
+          execute(connection, "DROP TABLE " + table);
+        }
+      }
+    } finally {
+      ConnectionManager.closePool();
+    }
+  }
+
+  private static int write(Connection connection, String table, boolean byCode) throws SQLException {
+    Timestamp now = Timestamp.from(Instant.now());
+    try (var preparedStatement = connection.prepareStatement(
+        "INSERT INTO " + table + " (id, provider, expiration_date, status) VALUES (?, ?, ?, ?)")) {
+      for (int i = 0; i < ROWS; i++) {
+        Provider provider = Provider.values()[i % Provider.values().length];
+        Status status = Status.values()[i % Status.values().length];
+        preparedStatement.setInt(1, i);
+        preparedStatement.setObject(2, byCode ? provider.getCode() : provider.name());
+        preparedStatement.setTimestamp(3, now);
+        preparedStatement.setObject(4, byCode ? status.getCode() : status.name());
+        preparedStatement.addBatch();
+        if ((i + 1) % BATCH_SIZE == 0) {
+          preparedStatement.executeBatch();
+        }
+      }
+      preparedStatement.executeBatch();
+    }
+    return ROWS;
+  }
+
+  private static List<Status> read(Connection connection, String table, boolean byCode) throws SQLException {
+    List<Status> statuses = new ArrayList<>(ROWS);
+    try (var statement = connection.createStatement();
+         var resultSet = statement.executeQuery("SELECT provider, status FROM " + table)) {
+      while (resultSet.next()) {
+        if (byCode) {
+          Provider.fromCode(resultSet.getInt(1));
+          statuses.add(Status.fromCode(resultSet.getInt(2)));
+        } else {
+          Provider.valueOf(resultSet.getString(1));
+          statuses.add(Status.valueOf(resultSet.getString(2)));
+        }
+      }
+    }
+    return statuses;
+  }
+
+  private static long size(Connection connection, Dialect dialect, String table) throws SQLException {
+    String sql = dialect == Dialect.POSTGRESQL
+        ? "SELECT pg_relation_size('" + table + "_idx')"
+        : "CALL DISK_SPACE_USED('" + table.toUpperCase() + "')";
+    try (var statement = connection.createStatement();
+         var resultSet = statement.executeQuery(sql)) {
+      resultSet.next();
+      return resultSet.getLong(1);
+    }
+  }
+
+  private static void execute(Connection connection, String sql) throws SQLException {
+    try (var statement = connection.createStatement()) {
+      statement.execute(sql);
+    }
+  }
+}
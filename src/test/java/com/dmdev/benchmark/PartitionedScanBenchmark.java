@@ -0,0 +1,59 @@
+package com.dmdev.benchmark;
+
+import com.dmdev.dao.SubscriptionBulkLoader;
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.migration.SchemaMigrator;
+import com.dmdev.scan.SubscriptionScanner;
+import com.dmdev.util.ConnectionManager;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Scans the whole table with {@link SubscriptionScanner} at increasing parallelism. Runs against the database of
+ * {@code application.properties}, override it with {@code -Ddb.url=...} to measure PostgreSQL. The rows it loads
+ * have user ids above one billion and are deleted afterwards.
+ */
+public class PartitionedScanBenchmark {
+
+  private static final int ROWS = 500_000;
+  private static final int FIRST_USER_ID = 1_000_000_000;
+
+  public static void main(String[] args) throws Exception {
+    SchemaMigrator.getInstance().migrate();
+    SubscriptionDao subscriptionDao = SubscriptionDao.getInstance();
+    List<Subscription> subscriptions = new ArrayList<>(ROWS);
+    Instant now = Instant.now();
+    for (int i = 0; i < ROWS; i++) {
+      subscriptions.add(Subscription.builder()
+          .userId(FIRST_USER_ID + i)
+          .name("scan-benchmark")
+          .provider(Provider.values()[i % 2])
+          .expirationDate(now.plusSeconds(i))
+          .status(Status.ACTIVE)
+          .build());
+    }
+    SubscriptionBulkLoader.getInstance().load(subscriptions);
+    try {
+      for (int parallelism : new int[]{1, 2, 4, 8}) {
+        SubscriptionScanner scanner = new SubscriptionScanner(subscriptionDao, parallelism * 4, parallelism);
+        BenchmarkRunner.measure("scan, parallelism " + parallelism, 1, 3, ROWS, () -> {
+          LongAdder expirations = new LongAdder();
+          scanner.scan(subscription -> expirations.add(subscription.getExpirationDate().getEpochSecond()));
+          return expirations.sum();
+        });
+      }
+    } finally {
+      try (var connection = ConnectionManager.get();
+           var statement = connection.prepareStatement("DELETE FROM subscription WHERE user_id >= ?")) {
+        statement.setInt(1, FIRST_USER_ID);
+        statement.executeUpdate();
+      }
+      ConnectionManager.closePool();
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package com.dmdev.benchmark;
+
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.entity.SubscriptionRowMapper;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.h2.tools.SimpleResultSet;
+
+/**
+ * Compares the generated {@link SubscriptionRowMapper} with the hand-written by-name mapping it replaced.
+ */
+public class RowMapperBenchmark {
+
+  private static final int ROWS = 10_000;
+
+  public static void main(String[] args) throws Exception {
+    SimpleResultSet resultSet = new SimpleResultSet();
+    resultSet.addColumn("id", Types.INTEGER, 10, 0);
+    resultSet.addColumn("user_id", Types.INTEGER, 10, 0);
+    resultSet.addColumn("name", Types.VARCHAR, 64, 0);
+    resultSet.addColumn("provider", Types.SMALLINT, 5, 0);
+    resultSet.addColumn("expiration_date", Types.TIMESTAMP, 9, 0);
+    resultSet.addColumn("status", Types.SMALLINT, 5, 0);
+    Timestamp expirationDate = Timestamp.from(Instant.now());
+    for (int i = 0; i < ROWS; i++) {
+      resultSet.addRow(i, i % 1000, "name" + i, Provider.GOOGLE.getCode(), expirationDate, Status.ACTIVE.getCode());
+    }
+    resultSet.setAutoClose(false);
+
+    double handWritten = BenchmarkRunner.measure("hand-written by-name mapping", 50, 20, ROWS,
+        () -> mapAll(resultSet, true));
+    double generated = BenchmarkRunner.measure("generated positional mapping", 50, 20, ROWS,
+        () -> mapAll(resultSet, false));
+    System.out.printf("generated / hand-written: %.2f%n", generated / handWritten);
+  }
+
+  private static List<Subscription> mapAll(SimpleResultSet resultSet, boolean handWritten) throws SQLException {
+    resultSet.beforeFirst();
+    List<Subscription> subscriptions = new ArrayList<>(ROWS);
+    while (resultSet.next()) {
+      subscriptions.add(handWritten
+          ? buildEntity(resultSet)
+          : SubscriptionRowMapper.getInstance().map(resultSet));
+    }
+    return subscriptions;
+  }
+
+  private static Subscription buildEntity(ResultSet resultSet) throws SQLException {
+    return Subscription.builder()
+        .id(resultSet.getObject("id", Integer.class))
+        .userId(resultSet.getObject("user_id", Integer.class))
+        .name(resultSet.getObject("name", String.class))
+        .provider(Provider.fromCode(resultSet.getObject("provider", Integer.class)))
+        .expirationDate(resultSet.getObject("expiration_date", Timestamp.class).toInstant())
+        .status(Status.fromCode(resultSet.getObject("status", Integer.class)))
+        .build();
+  }
+}
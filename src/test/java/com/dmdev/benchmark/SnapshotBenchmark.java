@@ -0,0 +1,42 @@
+package com.dmdev.benchmark;
+
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.snapshot.SubscriptionSnapshot;
+import com.dmdev.snapshot.SubscriptionSnapshotFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures writing and restoring a {@link SubscriptionSnapshotFile} of one million subscriptions.
+ */
+public class SnapshotBenchmark {
+
+  private static final int ROWS = 1_000_000;
+  private static final String[] NAMES = {"basic", "premium", "family", "music", "video"};
+
+  public static void main(String[] args) throws Exception {
+    List<Subscription> subscriptions = new ArrayList<>(ROWS);
+    Instant now = Instant.now();
+    for (int i = 0; i < ROWS; i++) {
+      subscriptions.add(new Subscription(i, i / 3, NAMES[i % NAMES.length], Provider.values()[i % 2],
+          now.plusSeconds(i), Status.values()[i % 3]));
+    }
+    Path path = Files.createTempFile("subscriptions", ".snapshot");
+    SubscriptionSnapshot snapshot = new SubscriptionSnapshot(0, now, subscriptions);
+    try {
+      BenchmarkRunner.measure("snapshot write", 2, 5, ROWS, () -> {
+        SubscriptionSnapshotFile.write(path, snapshot);
+        return path;
+      });
+      BenchmarkRunner.measure("snapshot read", 2, 5, ROWS, () -> SubscriptionSnapshotFile.read(path));
+      System.out.printf("file size: %d bytes%n", Files.size(path));
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package com.dmdev.benchmark;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.migration.SchemaMigrator;
+import com.dmdev.util.ConnectionManager;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Compares {@link SubscriptionDao#findById} with the per-connection statement cache switched off and on.
+ * Runs against the database of {@code application.properties}, override it with {@code -Ddb.url=...} to measure
+ * PostgreSQL, where cached statements also skip planning.
+ */
+public class StatementCacheBenchmark {
+
+  private static final int LOOKUPS = 10_000;
+
+  public static void main(String[] args) throws Exception {
+    SchemaMigrator.getInstance().migrate();
+    SubscriptionDao subscriptionDao = SubscriptionDao.getInstance();
+    Subscription subscription = subscriptionDao.insert(Subscription.builder()
+        .userId(Integer.MAX_VALUE)
+        .name("statement-cache-benchmark")
+        .provider(Provider.GOOGLE)
+        .expirationDate(Instant.now().plus(30, ChronoUnit.DAYS))
+        .status(Status.ACTIVE)
+        .build());
+    int cacheSize = ConnectionManager.getStatementCacheSize();
+    try {
+      ConnectionManager.setStatementCacheSize(0);
+      double uncached = BenchmarkRunner.measure("findById, prepared per call", 5, 10, LOOKUPS,
+          () -> findById(subscriptionDao, subscription.getId()));
+      ConnectionManager.setStatementCacheSize(cacheSize);
+      double cached = BenchmarkRunner.measure("findById, cached statement", 5, 10, LOOKUPS,
+          () -> findById(subscriptionDao, subscription.getId()));
+      System.out.printf("cached / prepared per call: %.2f, hit rate %.3f%n",
+          cached / uncached, ConnectionManager.getStatementCacheStats().getHitRate());
+    } finally {
+      subscriptionDao.delete(subscription.getId());
+      ConnectionManager.closePool();
+    }
+  }
+
+  private static Subscription findById(SubscriptionDao subscriptionDao, Integer id) {
+    Subscription subscription = null;
+    for (int i = 0; i < LOOKUPS; i++) {
+      subscription = subscriptionDao.findById(id).orElseThrow();
+    }
+    return subscription;
+  }
+}
@@ -0,0 +1,95 @@
+package com.dmdev.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.dto.CreateSubscriptionDto;
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.feed.ChangeFeedLog;
+import com.dmdev.integration.IntegrationTestBase;
+import com.dmdev.mapper.CreateSubscriptionMapper;
+import com.dmdev.service.SubscriptionService;
+import com.dmdev.validator.CreateSubscriptionValidator;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SubscriptionCacheIT extends IntegrationTestBase {
+
+  @TempDir
+  Path directory;
+  private final Clock clock = Clock.systemUTC();
+  private final SubscriptionDao subscriptionDao = SubscriptionDao.getInstance();
+  private ChangeFeedLog changeFeed;
+  private SubscriptionCache cache;
+  private SubscriptionService service;
+
+  @BeforeEach
+  void init() {
+    changeFeed = new ChangeFeedLog(directory.resolve("feed"), 16, 4);
+    cache = new SubscriptionCache(subscriptionDao, clock);
+    service = new SubscriptionService(
+        subscriptionDao,
+        CreateSubscriptionMapper.getInstance(),
+        CreateSubscriptionValidator.getInstance(),
+        clock
+    );
+    service.addListener(changeFeed);
+    service.addListener(cache);
+  }
+
+  @AfterEach
+  void close() {
+    changeFeed.close();
+  }
+
+  @Test
+  void restoreCatchesUpWithChangesAfterSnapshot() {
+    Subscription canceled = service.upsert(getDto(1, "basic"));
+    Subscription prolonged = service.upsert(getDto(1, "premium"));
+    Path snapshot = directory.resolve("subscriptions.snapshot");
+    cache.writeSnapshot(snapshot, changeFeed);
+    service.cancel(canceled.getId());
+    Subscription added = service.upsert(getDto(2, "basic"));
+
+    SubscriptionCache restored = new SubscriptionCache(subscriptionDao, clock);
+    boolean fromSnapshot = restored.restore(snapshot, changeFeed);
+
+    assertThat(fromSnapshot).isTrue();
+    assertThat(restored.size()).isEqualTo(3);
+    assertThat(restored.findById(canceled.getId())).get()
+        .extracting(Subscription::getStatus).isEqualTo(Status.CANCELED);
+    assertThat(restored.findById(prolonged.getId())).contains(prolonged);
+    assertThat(restored.findByUserId(2)).containsExactly(added);
+  }
+
+  @Test
+  void restoreWithoutSnapshotLoadsFromDatabase() throws Exception {
+    service.upsert(getDto(1, "basic"));
+    Path snapshot = directory.resolve("corrupted.snapshot");
+    Files.write(snapshot, new byte[]{1, 2, 3});
+
+    SubscriptionCache restored = new SubscriptionCache(subscriptionDao, clock);
+    boolean fromSnapshot = restored.restore(snapshot, changeFeed);
+
+    assertThat(fromSnapshot).isFalse();
+    assertThat(restored.findByUserId(1)).hasSize(1);
+  }
+
+  private CreateSubscriptionDto getDto(Integer userId, String name) {
+    return CreateSubscriptionDto.builder()
+        .userId(userId)
+        .name(name)
+        .provider(Provider.GOOGLE.name())
+        .expirationDate(Instant.now().plus(30, ChronoUnit.DAYS).truncatedTo(ChronoUnit.MICROS))
+        .build();
+  }
+}
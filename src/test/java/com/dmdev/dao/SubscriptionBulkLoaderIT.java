@@ -0,0 +1,64 @@
+package com.dmdev.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.integration.IntegrationTestBase;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs against the H2 test database only, so these tests cover the batched insert fallback. The PostgreSQL
+ * {@code COPY} path is not exercised by any test; {@link SubscriptionCsvEncoderTest} covers only its CSV encoding.
+ */
+class SubscriptionBulkLoaderIT extends IntegrationTestBase {
+
+  private final SubscriptionBulkLoader bulkLoader = SubscriptionBulkLoader.getInstance();
+  private final SubscriptionDao subscriptionDao = SubscriptionDao.getInstance();
+
+  @Test
+  void loadFallsBackToBatchedInsertsOnH2() {
+    Instant expirationDate = Instant.now().plus(10, ChronoUnit.DAYS);
+    List<Subscription> subscriptions = IntStream.range(0, 2500)
+        .mapToObj(i -> getSubscription(i % 100, "name" + i, expirationDate))
+        .collect(Collectors.toList());
+
+    long actualResult = bulkLoader.load(subscriptions);
+
+    assertThat(actualResult).isEqualTo(2500);
+    assertThat(subscriptionDao.findAll()).hasSize(2500);
+    assertThat(subscriptionDao.findByUserId(42))
+        .hasSize(25)
+        .allSatisfy(subscription -> assertThat(subscription.getExpirationDate()).isEqualTo(expirationDate));
+  }
+
+  @Test
+  void loadIsAllOrNothing() {
+    Instant expirationDate = Instant.now().plus(10, ChronoUnit.DAYS);
+    List<Subscription> subscriptions = List.of(
+        getSubscription(1, "duplicate", expirationDate),
+        getSubscription(2, "other", expirationDate),
+        getSubscription(1, "duplicate", expirationDate));
+
+    assertThrows(Exception.class, () -> bulkLoader.load(subscriptions));
+
+    assertThat(subscriptionDao.findAll()).isEmpty();
+  }
+
+  private Subscription getSubscription(Integer userId, String name, Instant expirationDate) {
+    return Subscription.builder()
+        .userId(userId)
+        .name(name)
+        .provider(Provider.APPLE)
+        .expirationDate(expirationDate)
+        .status(Status.ACTIVE)
+        .build();
+  }
+}
@@ -0,0 +1,74 @@
+package com.dmdev.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+
+class SubscriptionCsvEncoderTest {
+
+  @Test
+  void encodeQuotesNameAndStoresEnumCodes() {
+    Instant expirationDate = Instant.parse("2030-01-02T03:04:05.123456789Z");
+    SubscriptionCsvEncoder encoder = new SubscriptionCsvEncoder(4);
+
+    encoder.encode(getSubscription(7, "say \"hi\", привет 😀", expirationDate));
+
+    assertThat(new String(encoder.getBuffer(), 0, encoder.getLength(), StandardCharsets.UTF_8))
+        .isEqualTo("7,\"say \"\"hi\"\", привет 😀\",0,"
+            + Timestamp.from(expirationDate) + ",0\n");
+  }
+
+  @Test
+  void encodeWritesTimestampsLikeJdbc() {
+    SubscriptionCsvEncoder encoder = new SubscriptionCsvEncoder(64);
+    Instant start = Instant.parse("1969-12-31T23:59:59Z");
+    for (long step = 0; step < 2000; step++) {
+      Instant expirationDate = start.plusSeconds(step * 7_919_993L).plusNanos(step % 3 == 0 ? 0 : step * 1_000_100);
+      encoder.reset();
+
+      encoder.encode(getSubscription(-1, "", expirationDate));
+
+      assertThat(new String(encoder.getBuffer(), 0, encoder.getLength(), StandardCharsets.UTF_8))
+          .isEqualTo("-1,\"\",0," + Timestamp.from(expirationDate) + ",0\n");
+    }
+  }
+
+  @Test
+  void encodeReplacesUnpairedSurrogate() {
+    SubscriptionCsvEncoder encoder = new SubscriptionCsvEncoder(4);
+
+    encoder.encode(getSubscription(Integer.MIN_VALUE, "a\uD800b", Instant.EPOCH));
+
+    assertThat(new String(encoder.getBuffer(), 0, encoder.getLength(), StandardCharsets.UTF_8))
+        .startsWith(Integer.MIN_VALUE + ",\"a?b\",");
+  }
+
+  @Test
+  void resetReusesBuffer() {
+    SubscriptionCsvEncoder encoder = new SubscriptionCsvEncoder(1024);
+    encoder.encode(getSubscription(1, "first", Instant.now()));
+    byte[] buffer = encoder.getBuffer();
+
+    encoder.reset();
+    encoder.encode(getSubscription(2, "second", Instant.now()));
+
+    assertThat(encoder.getBuffer()).isSameAs(buffer);
+    assertThat(new String(encoder.getBuffer(), 0, encoder.getLength(), StandardCharsets.UTF_8)).startsWith("2,\"second\"");
+  }
+
+  private Subscription getSubscription(Integer userId, String name, Instant expirationDate) {
+    return Subscription.builder()
+        .userId(userId)
+        .name(name)
+        .provider(Provider.GOOGLE)
+        .expirationDate(expirationDate)
+        .status(Status.ACTIVE)
+        .build();
+  }
+}
@@ -3,14 +3,23 @@ package com.dmdev.dao;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import com.dmdev.dto.SubscriptionExpirationDto;
+import com.dmdev.dto.SubscriptionStatusDto;
 import com.dmdev.entity.Provider;
 import com.dmdev.entity.Status;
 import com.dmdev.entity.Subscription;
+import com.dmdev.exception.DeadlineExceededException;
+import com.dmdev.exception.DuplicateKeyException;
 import com.dmdev.integration.IntegrationTestBase;
+import com.dmdev.resilience.Deadline;
+import com.dmdev.util.ConnectionManager;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import org.h2.jdbc.JdbcSQLIntegrityConstraintViolationException;
 import org.junit.jupiter.api.Test;
 
 class SubscriptionDaoIT extends IntegrationTestBase {
@@ -115,7 +124,7 @@ class SubscriptionDaoIT extends IntegrationTestBase {
 
     Subscription actualResult = subscriptionDao.insert(subscription1);
     assertThat(actualResult.getId()).isNotNull();
-    assertThrows(JdbcSQLIntegrityConstraintViolationException.class,
+    assertThrows(DuplicateKeyException.class,
                  () -> subscriptionDao.insert(subscription2));
   }
 
@@ -134,6 +143,122 @@ class SubscriptionDaoIT extends IntegrationTestBase {
     assertThat(subscriptionNames).contains(subscription1.getName(), subscription2.getName());
   }
 
+  @Test
+  void findStatusById() {
+    Subscription subscription = subscriptionDao.insert(getSubscription(1, "name"));
+
+    Optional<SubscriptionStatusDto> actualResult = subscriptionDao.findStatusById(subscription.getId());
+
+    assertThat(actualResult).contains(new SubscriptionStatusDto(subscription.getId(), Status.ACTIVE));
+    assertThat(subscriptionDao.findStatusById(subscription.getId() + 1)).isEmpty();
+  }
+
+  @Test
+  void findActiveExpirationsByUserId() {
+    Subscription active = subscriptionDao.insert(getSubscription(1, "active"));
+    subscriptionDao.insert(getSubscription(1, "canceled").setStatus(Status.CANCELED));
+    subscriptionDao.insert(getSubscription(2, "other"));
+
+    List<SubscriptionExpirationDto> actualResult = subscriptionDao.findActiveExpirationsByUserId(1);
+
+    assertThat(actualResult).containsExactly(
+        new SubscriptionExpirationDto(active.getId(), 1, active.getExpirationDate()));
+  }
+
+  @Test
+  void findUnexpiredExpirationsBefore() {
+    Subscription due = subscriptionDao.insert(getSubscription(1, "due"));
+    subscriptionDao.insert(getSubscription(1, "expired").setStatus(Status.EXPIRED));
+    subscriptionDao.insert(getSubscription(2, "later").setExpirationDate(Instant.now().plusSeconds(3600)));
+
+    List<SubscriptionExpirationDto> actualResult =
+        subscriptionDao.findUnexpiredExpirationsBefore(Instant.now().plusSeconds(120));
+
+    assertThat(actualResult).extracting(SubscriptionExpirationDto::getId).containsExactly(due.getId());
+  }
+
+  @Test
+  void findByIdFailsFastWhenNoConnectionIsReleasedBeforeDeadline() throws SQLException {
+    List<Connection> connections = new ArrayList<>();
+    long timeoutCount = subscriptionDao.getTimeoutCount();
+    double failureRate = subscriptionDao.getCircuitBreaker().getFailureRate();
+    try {
+      for (int i = 0; i < ConnectionManager.getPoolSize(); i++) {
+        connections.add(ConnectionManager.get());
+      }
+
+      assertThrows(DeadlineExceededException.class,
+                   () -> Deadline.within(Duration.ofMillis(100), () -> subscriptionDao.findById(1)));
+      assertThat(subscriptionDao.getTimeoutCount()).isEqualTo(timeoutCount + 1);
+      assertThat(subscriptionDao.getCircuitBreaker().getFailureRate()).isEqualTo(failureRate);
+    } finally {
+      for (Connection connection : connections) {
+        connection.close();
+      }
+    }
+  }
+
+  @Test
+  void expiredDeadlineIsNotReportedAsFailure() {
+    subscriptionDao.findById(1);
+    double failureRate = subscriptionDao.getCircuitBreaker().getFailureRate();
+
+    assertThrows(DeadlineExceededException.class, () -> Deadline.within(Duration.ZERO, () -> subscriptionDao.findById(1)));
+
+    assertThat(subscriptionDao.getCircuitBreaker().getFailureRate()).isEqualTo(failureRate);
+  }
+
+  @Test
+  void insertBatchRollsBackWhenOneRowFails() {
+    var subscriptions = List.of(getSubscription(1, "name"), getSubscription(2, "name"), getSubscription(1, "name"));
+
+    assertThrows(DuplicateKeyException.class, () -> subscriptionDao.insertBatch(subscriptions));
+
+    assertThat(subscriptionDao.findAll()).isEmpty();
+    var subscription = subscriptionDao.insert(getSubscription(2, "name"));
+    assertThat(subscriptionDao.findById(subscription.getId())).isPresent();
+  }
+
+  @Test
+  void archiveRollsBackWhenTheCopyFails() throws SQLException {
+    Instant expired = Instant.now().minusSeconds(60);
+    var subscription = subscriptionDao.insert(getSubscription(1, "name").setExpirationDate(expired).setStatus(Status.EXPIRED));
+    var other = subscriptionDao.insert(getSubscription(2, "name").setExpirationDate(expired).setStatus(Status.EXPIRED));
+    try (var connection = ConnectionManager.get();
+         var statement = connection.prepareStatement(
+             "INSERT INTO subscription_archive (id, user_id, name, provider, expiration_date, status, archived_at)"
+                 + " SELECT id, user_id, name, provider, expiration_date, status, expiration_date FROM subscription"
+                 + " WHERE id = ?")) {
+      statement.setObject(1, other.getId());
+      statement.executeUpdate();
+    }
+
+    assertThrows(DuplicateKeyException.class, () -> subscriptionDao.archive(Instant.now(), 10, Instant.now()));
+
+    assertThat(subscriptionDao.findById(subscription.getId())).isPresent();
+    assertThat(subscriptionDao.findById(other.getId())).isPresent();
+    assertThat(subscriptionDao.findByUserIdIncludingArchived(1)).hasSize(1);
+  }
+
+  @Test
+  void archiveFailsFastWhenNoConnectionIsReleasedBeforeDeadline() throws SQLException {
+    List<Connection> connections = new ArrayList<>();
+    long timeoutCount = subscriptionDao.getTimeoutCount();
+    try {
+      for (int i = 0; i < ConnectionManager.getPoolSize(); i++) {
+        connections.add(ConnectionManager.get());
+      }
+
+      assertThrows(DeadlineExceededException.class, () -> Deadline.within(Duration.ofMillis(100),
+          () -> subscriptionDao.archive(Instant.now(), 10, Instant.now())));
+      assertThat(subscriptionDao.getTimeoutCount()).isEqualTo(timeoutCount + 1);
+    } finally {
+      for (Connection connection : connections) {
+        connection.close();
+      }
+    }
+  }
+
   private Subscription getSubscription(Integer userId, String name) {
     return Subscription.builder()
         .userId(userId)
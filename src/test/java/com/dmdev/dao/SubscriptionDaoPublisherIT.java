@@ -0,0 +1,179 @@
+package com.dmdev.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.exception.DeadlineExceededException;
+import com.dmdev.integration.IntegrationTestBase;
+import com.dmdev.resilience.CircuitBreaker;
+import com.dmdev.resilience.CircuitBreakerConfig;
+import com.dmdev.util.ConnectionManager;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SubscriptionDaoPublisherIT extends IntegrationTestBase {
+
+  private final SubscriptionDao subscriptionDao = SubscriptionDao.getInstance();
+
+  @BeforeEach
+  void insertSubscriptions() {
+    for (int i = 0; i < 5; i++) {
+      subscriptionDao.insert(getSubscription(1, "name" + i, i % 2 == 0 ? Status.ACTIVE : Status.CANCELED));
+    }
+    subscriptionDao.insert(getSubscription(2, "other", Status.ACTIVE));
+  }
+
+  @Test
+  void publishByUserIdDeliversOnlyRequestedRows() {
+    int idleBefore = ConnectionManager.getIdleCount();
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    subscriptionDao.publishByUserId(1).subscribe(subscriber);
+
+    assertThat(subscriber.items).isEmpty();
+    subscriber.subscription.request(2);
+
+    assertThat(subscriber.items).hasSize(2);
+    assertThat(subscriber.completed).isFalse();
+
+    subscriber.subscription.request(3);
+
+    assertThat(subscriber.items).hasSize(5).allSatisfy(subscription -> assertThat(subscription.getUserId()).isEqualTo(1));
+    assertThat(subscriber.completed).isTrue();
+    assertThat(ConnectionManager.getIdleCount()).isEqualTo(idleBefore);
+  }
+
+  @Test
+  void cancelReleasesConnection() {
+    int idleBefore = ConnectionManager.getIdleCount();
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    subscriptionDao.publishAll().subscribe(subscriber);
+    subscriber.subscription.request(1);
+    int idleWhileOpen = ConnectionManager.getIdleCount();
+
+    subscriber.subscription.cancel();
+    subscriber.subscription.request(10);
+
+    assertThat(subscriber.items).hasSize(1);
+    assertThat(subscriber.completed).isFalse();
+    assertThat(ConnectionManager.getIdleCount()).isEqualTo(idleWhileOpen + 1).isGreaterThanOrEqualTo(idleBefore);
+  }
+
+  @Test
+  void requestFromOnNextDoesNotRecurse() {
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    subscriber.requestNextOnNext = true;
+    subscriptionDao.publishByStatus(Status.ACTIVE).subscribe(subscriber);
+
+    subscriber.subscription.request(1);
+
+    assertThat(subscriber.items).hasSize(4).allSatisfy(subscription ->
+        assertThat(subscription.getStatus()).isEqualTo(Status.ACTIVE));
+    assertThat(subscriber.completed).isTrue();
+    assertThat(subscriber.maxDepth).isEqualTo(1);
+  }
+
+  @Test
+  void nonPositiveRequestSignalsError() {
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    subscriptionDao.publishUnexpiredBefore(Instant.now().plusSeconds(3600)).subscribe(subscriber);
+
+    subscriber.subscription.request(0);
+
+    assertThat(subscriber.error).isInstanceOf(IllegalArgumentException.class);
+    assertThat(subscriber.items).isEmpty();
+  }
+
+  @Test
+  void rowMapperFailureIsReportedToCircuitBreaker() {
+    CircuitBreaker circuitBreaker = new CircuitBreaker("test", CircuitBreakerConfig.builder().build());
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    new CursorPublisher<Subscription>(SubscriptionDao.GET_BY_USER_ID_SQL, preparedStatement ->
+        preparedStatement.setObject(1, 1), resultSet -> {
+      throw new IllegalStateException("Unmappable row");
+    }, circuitBreaker, Duration.ofSeconds(5), 10).subscribe(subscriber);
+
+    subscriber.subscription.request(1);
+
+    assertThat(subscriber.error).isInstanceOf(IllegalStateException.class);
+    assertThat(circuitBreaker.getFailureRate()).isEqualTo(1.0);
+  }
+
+  @Test
+  void exhaustedPoolIsNotReportedToCircuitBreaker() throws SQLException {
+    CircuitBreaker circuitBreaker = new CircuitBreaker("test", CircuitBreakerConfig.builder().build());
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    List<Connection> connections = new ArrayList<>();
+    try {
+      for (int i = 0; i < ConnectionManager.getPoolSize(); i++) {
+        connections.add(ConnectionManager.get());
+      }
+      new CursorPublisher<Subscription>(SubscriptionDao.GET_BY_USER_ID_SQL, preparedStatement ->
+          preparedStatement.setObject(1, 1), resultSet -> new Subscription(), circuitBreaker, Duration.ofMillis(50), 10).subscribe(subscriber);
+
+      subscriber.subscription.request(1);
+    } finally {
+      for (Connection connection : connections) {
+        connection.close();
+      }
+    }
+
+    assertThat(subscriber.error).isInstanceOf(DeadlineExceededException.class);
+    assertThat(circuitBreaker.getFailureRate()).isZero();
+  }
+
+  private Subscription getSubscription(Integer userId, String name, Status status) {
+    return Subscription.builder()
+        .userId(userId)
+        .name(name)
+        .provider(Provider.GOOGLE)
+        .expirationDate(Instant.now().plusSeconds(60))
+        .status(status)
+        .build();
+  }
+
+  private static class RecordingSubscriber implements Flow.Subscriber<Subscription> {
+
+    final List<Subscription> items = new ArrayList<>();
+    Flow.Subscription subscription;
+    boolean requestNextOnNext;
+    boolean completed;
+    Throwable error;
+    int depth;
+    int maxDepth;
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(Subscription item) {
+      depth++;
+      maxDepth = Math.max(maxDepth, depth);
+      items.add(item);
+      if (requestNextOnNext) {
+        subscription.request(1);
+      }
+      depth--;
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      error = throwable;
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package com.dmdev.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.integration.IntegrationTestBase;
+import com.dmdev.migration.Dialect;
+import com.dmdev.util.ConnectionManager;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class SubscriptionDaoQueryPlanIT extends IntegrationTestBase {
+
+  @ParameterizedTest(name = "{0}")
+  @MethodSource("getQueryArguments")
+  void queryDoesNotScanTable(String query, String sql, List<Object> parameters) throws SQLException {
+    try (Connection connection = ConnectionManager.get()) {
+      Dialect dialect = Dialect.of(connection);
+      String actualPlan;
+      if (dialect == Dialect.POSTGRESQL) {
+        // the setting must not outlive this test on the pooled connection
+        execute(connection, "SET enable_seqscan = off");
+        try {
+          actualPlan = explain(connection, sql, parameters);
+        } finally {
+          execute(connection, "RESET enable_seqscan");
+        }
+      } else {
+        actualPlan = explain(connection, sql, parameters);
+      }
+
+      assertThat(actualPlan)
+          .doesNotContainIgnoringCase(dialect == Dialect.POSTGRESQL ? "Seq Scan" : "tableScan");
+    }
+  }
+
+  static Stream<Arguments> getQueryArguments() {
+    Timestamp now = Timestamp.from(Instant.now());
+    return Stream.of(
+        Arguments.of("findById", SubscriptionDao.GET_BY_ID_SQL, List.of(1)),
+        Arguments.of("findByUserId", SubscriptionDao.GET_BY_USER_ID_SQL, List.of(1)),
+        Arguments.of("publishByStatus", SubscriptionDao.GET_BY_STATUS_SQL, List.of(Status.ACTIVE.getCode())),
+        Arguments.of("publishByIdRange", SubscriptionDao.GET_BY_ID_RANGE_SQL, List.of(1, 1000)),
+        Arguments.of("publishUnexpiredBefore", SubscriptionDao.GET_UNEXPIRED_BEFORE_SQL, List.of(Status.ACTIVE.getCode(), Status.CANCELED.getCode(), now)),
+        Arguments.of("findStatusById", SubscriptionDao.GET_STATUS_BY_ID_SQL, List.of(1)),
+        Arguments.of("findActiveExpirationsByUserId", SubscriptionDao.GET_EXPIRATIONS_BY_USER_ID_AND_STATUS_SQL,
+            List.of(1, Status.ACTIVE.getCode())),
+        Arguments.of("findUnexpiredExpirationsBefore", SubscriptionDao.GET_UNEXPIRED_EXPIRATIONS_BEFORE_SQL,
+            List.of(Status.ACTIVE.getCode(), Status.CANCELED.getCode(), now)),
+        Arguments.of("findByIdIncludingArchived", SubscriptionDao.GET_BY_ID_INCLUDING_ARCHIVED_SQL, List.of(1, 1)),
+        Arguments.of("findByUserIdIncludingArchived", SubscriptionDao.GET_BY_USER_ID_INCLUDING_ARCHIVED_SQL,
+            List.of(1, 1)),
+        Arguments.of("archive", SubscriptionDao.GET_ARCHIVABLE_SQL,
+            List.of(Status.EXPIRED.getCode(), Status.CANCELED.getCode(), now, 100)),
+        Arguments.of("expireDue", SubscriptionDao.GET_DUE_BY_IDS_SQL,
+            List.of(new Integer[]{1, 2}, Status.ACTIVE.getCode(), Status.CANCELED.getCode(), now)),
+        Arguments.of("expireDue update", SubscriptionDao.EXPIRE_BY_IDS_SQL,
+            List.of(Status.EXPIRED.getCode(), now, new Integer[]{1, 2})),
+        Arguments.of("delete", SubscriptionDao.DELETE_BY_ID_SQL, List.of(1)),
+        Arguments.of("update", SubscriptionDao.UPDATE_BY_ID_SQL, List.of(1, "name", Provider.GOOGLE.getCode(), now, Status.ACTIVE.getCode(), 1)),
+        Arguments.of("updateBatchIfUnchanged", SubscriptionDao.UPDATE_BY_ID_IF_UNCHANGED_SQL,
+            List.of(1, "name", Provider.GOOGLE.getCode(), now, Status.ACTIVE.getCode(), 1, Status.EXPIRED.getCode(), now))
+    );
+  }
+
+  private static void execute(Connection connection, String sql) throws SQLException {
+    try (var statement = connection.createStatement()) {
+      statement.execute(sql);
+    }
+  }
+
+  private String explain(Connection connection, String sql, List<Object> parameters) throws SQLException {
+    try (var preparedStatement = connection.prepareStatement("EXPLAIN " + sql)) {
+      for (int i = 0; i < parameters.size(); i++) {
+        preparedStatement.setObject(i + 1, parameters.get(i));
+      }
+      List<String> plan = new ArrayList<>();
+      try (var resultSet = preparedStatement.executeQuery()) {
+        while (resultSet.next()) {
+          plan.add(resultSet.getString(1));
+        }
+      }
+      return String.join("\n", plan);
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package com.dmdev.entity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+
+class SubscriptionRowMapperTest {
+
+  private final SubscriptionRowMapper rowMapper = SubscriptionRowMapper.getInstance();
+
+  @Test
+  void columns() {
+    assertThat(SubscriptionRowMapper.COLUMNS).isEqualTo("id, user_id, name, provider, expiration_date, status");
+    assertThat(SubscriptionRowMapper.UPDATE_ASSIGNMENTS)
+        .isEqualTo("user_id = ?, name = ?, provider = ?, expiration_date = ?, status = ?");
+    assertThat(SubscriptionRowMapper.BIND_COUNT).isEqualTo(5);
+  }
+
+  @Test
+  void map() throws SQLException {
+    Instant expirationDate = Instant.now();
+    ResultSet resultSet = mock(ResultSet.class);
+    doReturn(1).when(resultSet).getObject(1, Integer.class);
+    doReturn(10).when(resultSet).getObject(2, Integer.class);
+    doReturn("name").when(resultSet).getString(3);
+    doReturn(Provider.APPLE.getCode()).when(resultSet).getInt(4);
+    doReturn(Timestamp.from(expirationDate)).when(resultSet).getTimestamp(5);
+    doReturn(Status.CANCELED.getCode()).when(resultSet).getInt(6);
+
+    Subscription actualResult = rowMapper.map(resultSet);
+
+    assertThat(actualResult).isEqualTo(new Subscription(1, 10, "name", Provider.APPLE, expirationDate, Status.CANCELED));
+  }
+
+  @Test
+  void bind() throws SQLException {
+    Instant expirationDate = Instant.now();
+    PreparedStatement preparedStatement = mock(PreparedStatement.class);
+    Subscription subscription = new Subscription(1, 10, "name", Provider.GOOGLE, expirationDate, Status.ACTIVE);
+
+    int actualResult = rowMapper.bind(preparedStatement, subscription);
+
+    assertThat(actualResult).isEqualTo(5);
+    verify(preparedStatement).setObject(1, 10);
+    verify(preparedStatement).setObject(2, "name");
+    verify(preparedStatement).setInt(3, Provider.GOOGLE.getCode());
+    verify(preparedStatement).setObject(4, Timestamp.from(expirationDate));
+    verify(preparedStatement).setInt(5, Status.ACTIVE.getCode());
+  }
+}
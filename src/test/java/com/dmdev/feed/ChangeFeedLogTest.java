@@ -0,0 +1,89 @@
+package com.dmdev.feed;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ChangeFeedLogTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void appendAndTail() {
+    Instant expirationDate = Instant.parse("2030-01-01T10:15:30.123456789Z");
+    try (ChangeFeedLog log = new ChangeFeedLog(directory, 8, 2)) {
+      long offset = log.append(null, getSubscription(1, 10, Status.ACTIVE, expirationDate));
+      log.onChange(Status.ACTIVE, getSubscription(1, 10, Status.CANCELED, expirationDate));
+
+      List<ChangeEvent> actualResult = new ArrayList<>();
+      ChangeFeedReader reader = log.reader(offset);
+      int read = reader.poll(10, view -> actualResult.add(view.toEvent()));
+
+      assertThat(read).isEqualTo(2);
+      assertThat(reader.getOffset()).isEqualTo(2);
+      assertThat(actualResult).containsExactly(
+          new ChangeEvent(0, 1, 10, null, Status.ACTIVE, expirationDate),
+          new ChangeEvent(1, 1, 10, Status.ACTIVE, Status.CANCELED, expirationDate)
+      );
+      assertThat(reader.poll(10, view -> actualResult.add(view.toEvent()))).isZero();
+    }
+  }
+
+  @Test
+  void readerFollowsRolledSegments() {
+    try (ChangeFeedLog log = new ChangeFeedLog(directory, 4, 10)) {
+      ChangeFeedReader reader = log.reader(0);
+      List<Integer> actualResult = new ArrayList<>();
+      for (int i = 0; i < 10; i++) {
+        log.append(null, getSubscription(i, i, Status.ACTIVE, Instant.now()));
+        reader.poll(1, view -> actualResult.add(view.getSubscriptionId()));
+      }
+
+      assertThat(log.getSegmentCount()).isEqualTo(3);
+      assertThat(actualResult).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+    }
+  }
+
+  @Test
+  void retentionRemovesOldestSegments() {
+    try (ChangeFeedLog log = new ChangeFeedLog(directory, 4, 2)) {
+      for (int i = 0; i < 13; i++) {
+        log.append(null, getSubscription(i, i, Status.ACTIVE, Instant.now()));
+      }
+
+      assertThat(log.getSegmentCount()).isEqualTo(2);
+      assertThat(log.getStartOffset()).isEqualTo(8);
+      assertThat(log.getEndOffset()).isEqualTo(13);
+      assertThrows(IllegalStateException.class, () -> log.reader(0).poll(1, view -> { }));
+    }
+  }
+
+  @Test
+  void reopenContinuesAfterLastCommittedRecord() {
+    try (ChangeFeedLog log = new ChangeFeedLog(directory, 4, 2)) {
+      for (int i = 0; i < 6; i++) {
+        log.append(null, getSubscription(i, i, Status.ACTIVE, Instant.now()));
+      }
+    }
+
+    try (ChangeFeedLog log = new ChangeFeedLog(directory, 4, 2)) {
+      long actualResult = log.append(null, getSubscription(6, 6, Status.ACTIVE, Instant.now()));
+
+      assertThat(actualResult).isEqualTo(6);
+    }
+  }
+
+  private Subscription getSubscription(Integer id, Integer userId, Status status, Instant expirationDate) {
+    return new Subscription(id, userId, "name", Provider.GOOGLE, expirationDate, status);
+  }
+}
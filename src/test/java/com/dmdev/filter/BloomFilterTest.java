@@ -0,0 +1,37 @@
+package com.dmdev.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+
+  @Test
+  void containsEveryInsertedKeyAndFewOthers() {
+    int insertions = 100_000;
+    BloomFilter filter = BloomFilter.create(insertions, 0.01);
+    for (int userId = 0; userId < insertions; userId++) {
+      filter.put(SubscriptionKeyFilter.hash(userId, "premium"));
+    }
+
+    for (int userId = 0; userId < insertions; userId++) {
+      assertThat(filter.mightContain(SubscriptionKeyFilter.hash(userId, "premium"))).isTrue();
+    }
+    int falsePositives = 0;
+    for (int userId = 0; userId < insertions; userId++) {
+      if (filter.mightContain(SubscriptionKeyFilter.hash(userId, "basic"))) {
+        falsePositives++;
+      }
+    }
+    assertThat((double) falsePositives / insertions).isLessThan(0.02);
+    assertThat(filter.getInsertions()).isEqualTo(insertions);
+    assertThat(filter.getExpectedFalsePositiveRate()).isBetween(0.005, 0.015);
+  }
+
+  @Test
+  void rejectsInvalidSizing() {
+    assertThrows(IllegalArgumentException.class, () -> BloomFilter.create(0, 0.01));
+    assertThrows(IllegalArgumentException.class, () -> BloomFilter.create(1000, 1));
+  }
+}
@@ -0,0 +1,80 @@
+package com.dmdev.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.dto.CreateSubscriptionDto;
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.integration.IntegrationTestBase;
+import com.dmdev.mapper.CreateSubscriptionMapper;
+import com.dmdev.service.SubscriptionService;
+import com.dmdev.validator.CreateSubscriptionValidator;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import org.junit.jupiter.api.Test;
+
+class SubscriptionKeyFilterIT extends IntegrationTestBase {
+
+  private final SubscriptionDao subscriptionDao = SubscriptionDao.getInstance();
+
+  @Test
+  void loadAddsStoredKeys() {
+    subscriptionDao.insert(getSubscription(1, "basic"));
+    subscriptionDao.insert(getSubscription(2, "premium"));
+    SubscriptionKeyFilter filter = SubscriptionKeyFilter.create(1000, 0.01);
+
+    long loaded = filter.load(subscriptionDao);
+
+    assertThat(loaded).isEqualTo(2);
+    assertThat(filter.mightContain(1, "basic")).isTrue();
+    assertThat(filter.mightContain(2, "premium")).isTrue();
+    assertThat(filter.mightContain(1, "premium")).isFalse();
+  }
+
+  @Test
+  void upsertKeepsFilterCurrent() {
+    subscriptionDao.insert(getSubscription(1, "basic"));
+    SubscriptionKeyFilter filter = SubscriptionKeyFilter.create(1000, 0.01);
+    filter.load(subscriptionDao);
+    SubscriptionService service = new SubscriptionService(
+        subscriptionDao,
+        CreateSubscriptionMapper.getInstance(),
+        CreateSubscriptionValidator.getInstance(),
+        Clock.systemUTC()
+    );
+    service.setKeyFilter(filter);
+
+    Subscription inserted = service.upsert(getDto(1, "premium"));
+    Subscription prolonged = service.upsert(getDto(1, "basic"));
+    service.upsert(getDto(1, "premium"));
+
+    assertThat(subscriptionDao.findByUserId(1)).hasSize(2);
+    assertThat(prolonged.getStatus()).isEqualByComparingTo(Status.ACTIVE);
+    assertThat(filter.mightContain(1, inserted.getName())).isTrue();
+    assertThat(filter.getSkippedLookups()).isEqualTo(1);
+    assertThat(filter.getFalsePositives()).isZero();
+    assertThat(filter.getFalsePositiveRate()).isZero();
+  }
+
+  private CreateSubscriptionDto getDto(Integer userId, String name) {
+    return CreateSubscriptionDto.builder()
+        .userId(userId)
+        .name(name)
+        .provider(Provider.GOOGLE.name())
+        .expirationDate(Instant.now().plus(30, ChronoUnit.DAYS))
+        .build();
+  }
+
+  private Subscription getSubscription(Integer userId, String name) {
+    return Subscription.builder()
+        .userId(userId)
+        .name(name)
+        .provider(Provider.GOOGLE)
+        .expirationDate(Instant.now().plus(10, ChronoUnit.DAYS))
+        .status(Status.CANCELED)
+        .build();
+  }
+}
@@ -1,5 +1,6 @@
 package com.dmdev.integration;
 
+import com.dmdev.migration.SchemaMigrator;
 import com.dmdev.util.ConnectionManager;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -9,25 +10,11 @@ import java.sql.SQLException;
 public abstract class IntegrationTestBase {
 
     private static final String CLEAN_SQL = "DELETE FROM subscription;";
-    private static final String CREATE_SQL = """
-            CREATE TABLE IF NOT EXISTS subscription
-            (
-                id INT AUTO_INCREMENT PRIMARY KEY ,
-                user_id INT NOT NULL ,
-                name VARCHAR(64) NOT NULL ,
-                provider VARCHAR(16) NOT NULL ,
-                expiration_date TIMESTAMP(9) NOT NULL ,
-                status VARCHAR(16) NOT NULL ,
-                UNIQUE (user_id, name)
-            );
-            """;
+    private static final String CLEAN_ARCHIVE_SQL = "DELETE FROM subscription_archive;";
 
     @BeforeAll
-    static void prepareDatabase() throws SQLException {
-        try (var connection = ConnectionManager.get();
-             var statement = connection.createStatement()) {
-            statement.execute(CREATE_SQL);
-        }
+    static void prepareDatabase() {
+        SchemaMigrator.getInstance().migrate();
     }
 
     @BeforeEach
@@ -35,6 +22,7 @@ public abstract class IntegrationTestBase {
         try (var connection = ConnectionManager.get();
              var statement = connection.createStatement()) {
             statement.execute(CLEAN_SQL);
+            statement.execute(CLEAN_ARCHIVE_SQL);
         }
     }
 }
@@ -0,0 +1,44 @@
+package com.dmdev.jdbc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Assertions on the JDBC round trips of a block of code, e.g.
+ * {@code assertRoundTrips(() -> service.upsert(dto)).usesAtMostStatements(2)}.
+ */
+public final class RoundTripAssert {
+
+  private final RoundTrips roundTrips;
+
+  private RoundTripAssert(RoundTrips roundTrips) {
+    this.roundTrips = roundTrips;
+  }
+
+  public static RoundTripAssert assertRoundTrips(Runnable action) {
+    return new RoundTripAssert(RoundTripRecorder.capture(action));
+  }
+
+  public RoundTripAssert usesAtMostStatements(int statements) {
+    assertThat(roundTrips.getStatements())
+        .as("statements executed (%s)", roundTrips.getExecutionsBySql())
+        .isLessThanOrEqualTo(statements);
+    return this;
+  }
+
+  public RoundTripAssert usesAtMostConnections(int connections) {
+    assertThat(roundTrips.getConnections()).as("connections taken from the pool").isLessThanOrEqualTo(connections);
+    return this;
+  }
+
+  public RoundTripAssert fetchesAtMostRows(long rows) {
+    assertThat(roundTrips.getRows()).as("rows fetched").isLessThanOrEqualTo(rows);
+    return this;
+  }
+
+  public RoundTripAssert executesEachStatementAtMost(int times) {
+    assertThat(roundTrips.getMaxExecutionsOfOneStatement())
+        .as("executions of one statement (%s)", roundTrips.getExecutionsBySql())
+        .isLessThanOrEqualTo(times);
+    return this;
+  }
+}
@@ -0,0 +1,138 @@
+package com.dmdev.jdbc;
+
+import static com.dmdev.jdbc.RoundTripAssert.assertRoundTrips;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.dto.CreateSubscriptionDto;
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.integration.IntegrationTestBase;
+import com.dmdev.mapper.CreateSubscriptionMapper;
+import com.dmdev.service.SubscriptionService;
+import com.dmdev.validator.CreateSubscriptionValidator;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RoundTripRecorderIT extends IntegrationTestBase {
+
+  private final SubscriptionDao subscriptionDao = SubscriptionDao.getInstance();
+  private SubscriptionService service;
+
+  @BeforeEach
+  void init() {
+    RoundTripRecorder.reset();
+    service = new SubscriptionService(
+        subscriptionDao,
+        CreateSubscriptionMapper.getInstance(),
+        CreateSubscriptionValidator.getInstance(),
+        Clock.systemUTC()
+    );
+  }
+
+  @Test
+  void upsertUsesAtMostTwoStatements() {
+    subscriptionDao.insert(getSubscription(1, "basic"));
+    subscriptionDao.insert(getSubscription(1, "premium"));
+
+    assertRoundTrips(() -> service.upsert(getDto(1, "family")))
+        .usesAtMostStatements(2)
+        .usesAtMostConnections(2)
+        .fetchesAtMostRows(3);
+    assertRoundTrips(() -> service.upsert(getDto(1, "basic")))
+        .usesAtMostStatements(2)
+        .executesEachStatementAtMost(1);
+  }
+
+  @Test
+  void cancelAndExpireReadOnceAndWriteOnce() {
+    Subscription canceled = subscriptionDao.insert(getSubscription(1, "basic").setStatus(Status.ACTIVE));
+    Subscription expired = subscriptionDao.insert(getSubscription(1, "premium").setStatus(Status.ACTIVE));
+
+    assertRoundTrips(() -> service.cancel(canceled.getId()))
+        .usesAtMostStatements(2)
+        .fetchesAtMostRows(1);
+    assertRoundTrips(() -> service.expire(expired.getId()))
+        .usesAtMostStatements(2)
+        .fetchesAtMostRows(1);
+  }
+
+  @Test
+  void expireDueUsesTwoStatementsForTheWholeBatch() {
+    Instant past = Instant.now().minusSeconds(60);
+    List<Integer> ids = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      ids.add(subscriptionDao.insert(getSubscription(i, "basic").setExpirationDate(past)).getId());
+    }
+    ids.add(subscriptionDao.insert(getSubscription(5, "prolonged")).getId());
+    List<Status> previousStatuses = new ArrayList<>();
+    service.addListener((previousStatus, subscription) -> previousStatuses.add(previousStatus));
+
+    assertRoundTrips(() -> assertThat(service.expireDue(ids)).isEqualTo(5))
+        .usesAtMostStatements(2)
+        .usesAtMostConnections(1);
+    assertThat(previousStatuses).hasSize(5).containsOnly(Status.CANCELED);
+    assertThat(subscriptionDao.findById(ids.get(0)).orElseThrow().getStatus()).isEqualTo(Status.EXPIRED);
+    assertThat(subscriptionDao.findById(ids.get(5)).orElseThrow().getStatus()).isEqualTo(Status.CANCELED);
+  }
+
+  @Test
+  void recordsTotalsPerOperation() {
+    service.upsert(getDto(1, "basic"));
+    service.upsert(getDto(2, "basic"));
+    service.findByUserId(1);
+
+    OperationRoundTrips upsert = RoundTripRecorder.getOperations().get("upsert");
+    assertThat(upsert.getCalls()).isEqualTo(2);
+    assertThat(upsert.getStatements()).isEqualTo(4);
+    assertThat(upsert.getConnections()).isEqualTo(4);
+    assertThat(upsert.getMaxStatements()).isEqualTo(2);
+    assertThat(upsert.getRepeatedStatementCalls()).isZero();
+    assertThat(upsert.getJdbcNanos()).isPositive();
+    OperationRoundTrips findByUserId = RoundTripRecorder.getOperations().get("findByUserId");
+    assertThat(findByUserId.getStatements()).isEqualTo(1);
+    assertThat(findByUserId.getRows()).isEqualTo(1);
+  }
+
+  @Test
+  void detectsRepeatedStatements() {
+    for (int i = 0; i < 5; i++) {
+      subscriptionDao.insert(getSubscription(i, "basic"));
+    }
+
+    RoundTrips roundTrips = RoundTripRecorder.capture(() -> {
+      for (Subscription subscription : subscriptionDao.findAll()) {
+        subscriptionDao.findById(subscription.getId());
+      }
+    });
+
+    assertThat(roundTrips.getStatements()).isEqualTo(6);
+    assertThat(roundTrips.getRows()).isEqualTo(10);
+    assertThat(roundTrips.getMaxExecutionsOfOneStatement()).isEqualTo(5);
+  }
+
+  private CreateSubscriptionDto getDto(Integer userId, String name) {
+    return CreateSubscriptionDto.builder()
+        .userId(userId)
+        .name(name)
+        .provider(Provider.GOOGLE.name())
+        .expirationDate(Instant.now().plus(30, ChronoUnit.DAYS))
+        .build();
+  }
+
+  private Subscription getSubscription(Integer userId, String name) {
+    return Subscription.builder()
+        .userId(userId)
+        .name(name)
+        .provider(Provider.GOOGLE)
+        .expirationDate(Instant.now().plus(10, ChronoUnit.DAYS))
+        .status(Status.CANCELED)
+        .build();
+  }
+}
@@ -0,0 +1,77 @@
+package com.dmdev.loadtest;
+
+/**
+ * Log-linear latency histogram in the spirit of HdrHistogram: exact below 1024 ns, then 512 linear sub-buckets
+ * per power of two, which bounds the relative error of every percentile to about 0.2%. Not thread safe,
+ * record per thread and {@link #add} the results.
+ */
+class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 10;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT >> 1;
+  private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKET_HALF_COUNT;
+
+  private final long[] counts = new long[BUCKET_COUNT];
+  private long totalCount;
+  private long maxValue;
+
+  void record(long valueNanos) {
+    long value = Math.max(0, valueNanos);
+    counts[indexOf(value)]++;
+    totalCount++;
+    maxValue = Math.max(maxValue, value);
+  }
+
+  void add(LatencyHistogram other) {
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      counts[i] += other.counts[i];
+    }
+    totalCount += other.totalCount;
+    maxValue = Math.max(maxValue, other.maxValue);
+  }
+
+  long getTotalCount() {
+    return totalCount;
+  }
+
+  long getMaxValue() {
+    return maxValue;
+  }
+
+  /**
+   * Returns the highest value of the bucket holding the given percentile (0-100).
+   */
+  long getValueAtPercentile(double percentile) {
+    if (totalCount == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+    long seen = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return Math.min(highestValueOf(i), maxValue);
+      }
+    }
+    return maxValue;
+  }
+
+  static int indexOf(long value) {
+    if (value < SUB_BUCKET_COUNT) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+    return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT + (int) ((value >> shift) - SUB_BUCKET_HALF_COUNT);
+  }
+
+  static long highestValueOf(int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index;
+    }
+    int offset = index - SUB_BUCKET_COUNT;
+    int shift = offset / SUB_BUCKET_HALF_COUNT + 1;
+    long subBucket = offset % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+    return ((subBucket + 1) << shift) - 1;
+  }
+}
@@ -0,0 +1,57 @@
+package com.dmdev.loadtest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+  @Test
+  void percentilesAreExactForSmallValues() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 1000; i++) {
+      histogram.record(i);
+    }
+
+    assertThat(histogram.getTotalCount()).isEqualTo(1000);
+    assertThat(histogram.getValueAtPercentile(50)).isEqualTo(500);
+    assertThat(histogram.getValueAtPercentile(99)).isEqualTo(990);
+    assertThat(histogram.getValueAtPercentile(100)).isEqualTo(1000);
+  }
+
+  @Test
+  void percentilesOfLargeValuesStayWithinRelativeError() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long i = 1; i <= 10_000; i++) {
+      histogram.record(i * 1_000_000);
+    }
+
+    assertThat((double) histogram.getValueAtPercentile(99)).isCloseTo(9_900_000_000d, within(9_900_000_000d * 0.002));
+    assertThat(histogram.getMaxValue()).isEqualTo(10_000_000_000L);
+  }
+
+  @Test
+  void bucketBoundariesAreContiguous() {
+    for (int index = 1; index < 1024 + 20 * 512; index++) {
+      long lowest = LatencyHistogram.highestValueOf(index - 1) + 1;
+      assertThat(LatencyHistogram.indexOf(lowest)).isEqualTo(index);
+      assertThat(LatencyHistogram.indexOf(LatencyHistogram.highestValueOf(index))).isEqualTo(index);
+    }
+  }
+
+  @Test
+  void addMergesCounts() {
+    LatencyHistogram first = new LatencyHistogram();
+    LatencyHistogram second = new LatencyHistogram();
+    first.record(10);
+    second.record(20);
+    second.record(30);
+
+    first.add(second);
+
+    assertThat(first.getTotalCount()).isEqualTo(3);
+    assertThat(first.getValueAtPercentile(50)).isEqualTo(20);
+    assertThat(first.getMaxValue()).isEqualTo(30);
+  }
+}
@@ -0,0 +1,5 @@
+package com.dmdev.loadtest;
+
+enum LoadOperation {
+  UPSERT, CANCEL, EXPIRE, FIND_BY_USER_ID
+}
@@ -0,0 +1,46 @@
+package com.dmdev.loadtest;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+class LoadTestConfig {
+
+  int threads;
+  boolean virtualThreads;
+  Duration warmup;
+  Duration duration;
+  int users;
+  double zipfExponent;
+  Map<LoadOperation, Integer> mix;
+
+  /**
+   * Reads {@code loadtest.*} system properties, e.g.
+   * {@code -Dloadtest.threads=32 -Dloadtest.mix=upsert:50,find_by_user_id:40,cancel:5,expire:5}.
+   */
+  static LoadTestConfig fromSystemProperties() {
+    return LoadTestConfig.builder()
+        .threads(Integer.getInteger("loadtest.threads", 8))
+        .virtualThreads(Boolean.getBoolean("loadtest.virtual-threads"))
+        .warmup(Duration.ofSeconds(Long.getLong("loadtest.warmup-seconds", 5)))
+        .duration(Duration.ofSeconds(Long.getLong("loadtest.duration-seconds", 30)))
+        .users(Integer.getInteger("loadtest.users", 10_000))
+        .zipfExponent(Double.parseDouble(System.getProperty("loadtest.zipf-exponent", "1.1")))
+        .mix(parseMix(System.getProperty("loadtest.mix", "upsert:50,find_by_user_id:40,cancel:5,expire:5")))
+        .build();
+  }
+
+  private static Map<LoadOperation, Integer> parseMix(String mix) {
+    Map<LoadOperation, Integer> weights = new EnumMap<>(LoadOperation.class);
+    for (String entry : mix.split(",")) {
+      String[] parts = entry.trim().split(":");
+      weights.put(LoadOperation.valueOf(parts[0].trim().toUpperCase(Locale.ROOT)), Integer.parseInt(parts[1].trim()));
+    }
+    return weights;
+  }
+}
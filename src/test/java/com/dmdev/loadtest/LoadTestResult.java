@@ -0,0 +1,56 @@
+package com.dmdev.loadtest;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Latencies and errors of one worker, merged into the final report.
+ */
+class LoadTestResult {
+
+  private final Map<LoadOperation, LatencyHistogram> latencies = new EnumMap<>(LoadOperation.class);
+  private final Map<String, Long> errors = new TreeMap<>();
+
+  void recordSuccess(LoadOperation operation, long latencyNanos) {
+    latencies.computeIfAbsent(operation, key -> new LatencyHistogram()).record(latencyNanos);
+  }
+
+  void recordError(LoadOperation operation, Throwable error) {
+    errors.merge(operation + " " + error.getClass().getSimpleName(), 1L, Long::sum);
+  }
+
+  void add(LoadTestResult other) {
+    other.latencies.forEach((operation, histogram) ->
+        latencies.computeIfAbsent(operation, key -> new LatencyHistogram()).add(histogram));
+    other.errors.forEach((error, count) -> errors.merge(error, count, Long::sum));
+  }
+
+  void print(PrintStream out, Duration elapsed) {
+    double seconds = elapsed.toNanos() / 1e9;
+    long total = latencies.values().stream().mapToLong(LatencyHistogram::getTotalCount).sum();
+    long failed = errors.values().stream().mapToLong(Long::longValue).sum();
+    out.printf("duration %.1fs, %d ok, %d errors, %.1f ops/s%n", seconds, total, failed, total / seconds);
+    out.printf("%-16s %10s %10s %10s %10s %10s %10s %10s%n",
+        "operation", "count", "ops/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+    latencies.forEach((operation, histogram) -> out.printf("%-16s %10d %10.1f %10.3f %10.3f %10.3f %10.3f %10.3f%n",
+        operation,
+        histogram.getTotalCount(),
+        histogram.getTotalCount() / seconds,
+        millis(histogram.getValueAtPercentile(50)),
+        millis(histogram.getValueAtPercentile(90)),
+        millis(histogram.getValueAtPercentile(99)),
+        millis(histogram.getValueAtPercentile(99.9)),
+        millis(histogram.getMaxValue())));
+    if (!errors.isEmpty()) {
+      out.println("errors:");
+      errors.forEach((error, count) -> out.printf("  %-60s %10d%n", error, count));
+    }
+  }
+
+  private static double millis(long nanos) {
+    return nanos / 1e6;
+  }
+}
@@ -0,0 +1,182 @@
+package com.dmdev.loadtest;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.dto.CreateSubscriptionDto;
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Subscription;
+import com.dmdev.mapper.CreateSubscriptionMapper;
+import com.dmdev.migration.SchemaMigrator;
+import com.dmdev.service.SubscriptionService;
+import com.dmdev.util.ConnectionManager;
+import com.dmdev.validator.CreateSubscriptionValidator;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop workload generator for {@link SubscriptionService}. Every worker picks an operation from the
+ * configured mix and a user from a Zipf distribution, so a few hot users see most of the traffic, the same way
+ * production does. Latencies are recorded after the warm-up only and reported per operation together with the
+ * errors by type.
+ *
+ * <p>Runs against the database of {@code application.properties}; point it anywhere else with
+ * {@code -Ddb.url=... -Ddb.user=... -Ddb.password=...}:
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.dmdev.loadtest.SubscriptionLoadGenerator \
+ *     -Dloadtest.threads=16 -Dloadtest.duration-seconds=60
+ * </pre>
+ */
+public class SubscriptionLoadGenerator {
+
+  private static final String[] NAMES = {"basic", "premium", "family", "music", "video"};
+  private static final int KNOWN_IDS = 1 << 14;
+
+  private final LoadTestConfig config;
+  private final SubscriptionService service;
+  private final ZipfGenerator users;
+  private final LoadOperation[] operations;
+  private final int[] cumulativeWeights;
+  private final AtomicIntegerArray knownIds = new AtomicIntegerArray(KNOWN_IDS);
+  private final AtomicLong knownIdsWritten = new AtomicLong();
+
+  SubscriptionLoadGenerator(LoadTestConfig config, SubscriptionService service) {
+    this.config = config;
+    this.service = service;
+    this.users = new ZipfGenerator(config.getUsers(), config.getZipfExponent());
+    this.operations = config.getMix().keySet().toArray(LoadOperation[]::new);
+    this.cumulativeWeights = new int[operations.length];
+    int total = 0;
+    for (int i = 0; i < operations.length; i++) {
+      total += config.getMix().get(operations[i]);
+      cumulativeWeights[i] = total;
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+    SchemaMigrator.getInstance().migrate();
+    SubscriptionService service = new SubscriptionService(
+        SubscriptionDao.getInstance(),
+        CreateSubscriptionMapper.getInstance(),
+        CreateSubscriptionValidator.getInstance(),
+        Clock.systemUTC()
+    );
+    System.out.printf("%d %s threads, %d users (zipf %.2f), mix %s, warm-up %ss, measuring %ss%n",
+        config.getThreads(), config.isVirtualThreads() ? "virtual" : "platform", config.getUsers(),
+        config.getZipfExponent(), config.getMix(), config.getWarmup().toSeconds(), config.getDuration().toSeconds());
+    try {
+      new SubscriptionLoadGenerator(config, service).run().print(System.out, config.getDuration());
+    } finally {
+      ConnectionManager.closePool();
+    }
+  }
+
+  LoadTestResult run() throws Exception {
+    long start = System.nanoTime();
+    long measureFrom = start + config.getWarmup().toNanos();
+    long measureUntil = measureFrom + config.getDuration().toNanos();
+    List<Future<LoadTestResult>> workers = new ArrayList<>();
+    ExecutorService executor = newExecutor();
+    try {
+      for (int i = 0; i < config.getThreads(); i++) {
+        workers.add(executor.submit(() -> work(measureFrom, measureUntil)));
+      }
+      LoadTestResult result = new LoadTestResult();
+      for (Future<LoadTestResult> worker : workers) {
+        result.add(worker.get());
+      }
+      return result;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private LoadTestResult work(long measureFrom, long measureUntil) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    LoadTestResult result = new LoadTestResult();
+    long now = System.nanoTime();
+    while (now < measureUntil) {
+      LoadOperation operation = nextOperation(random);
+      boolean measured = now >= measureFrom;
+      try {
+        execute(operation, random);
+        long end = System.nanoTime();
+        if (measured) {
+          result.recordSuccess(operation, end - now);
+        }
+        now = end;
+      } catch (Exception e) {
+        if (measured) {
+          result.recordError(operation, e);
+        }
+        now = System.nanoTime();
+      }
+    }
+    return result;
+  }
+
+  private void execute(LoadOperation operation, ThreadLocalRandom random) {
+    switch (operation) {
+      case UPSERT -> remember(service.upsert(CreateSubscriptionDto.builder()
+          .userId(users.next(random))
+          .name(NAMES[random.nextInt(NAMES.length)])
+          .provider(random.nextBoolean() ? Provider.GOOGLE.name() : Provider.APPLE.name())
+          .expirationDate(Instant.now().plus(random.nextInt(1, 365), ChronoUnit.DAYS))
+          .build()));
+      case FIND_BY_USER_ID -> service.findByUserId(users.next(random));
+      case CANCEL -> service.cancel(knownId(random));
+      case EXPIRE -> service.expire(knownId(random));
+    }
+  }
+
+  private LoadOperation nextOperation(ThreadLocalRandom random) {
+    int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+    for (int i = 0; i < cumulativeWeights.length; i++) {
+      if (pick < cumulativeWeights[i]) {
+        return operations[i];
+      }
+    }
+    return operations[operations.length - 1];
+  }
+
+  private void remember(Subscription subscription) {
+    knownIds.set((int) (knownIdsWritten.getAndIncrement() & (KNOWN_IDS - 1)), subscription.getId());
+  }
+
+  /**
+   * Returns the id of a recently upserted subscription, or one that most likely does not exist yet, which
+   * exercises the not-found path the same way a stale client would.
+   */
+  private int knownId(ThreadLocalRandom random) {
+    long written = knownIdsWritten.get();
+    if (written == 0) {
+      return Integer.MAX_VALUE;
+    }
+    return knownIds.get(random.nextInt((int) Math.min(written, KNOWN_IDS)));
+  }
+
+  /**
+   * Virtual threads need JDK 21 while the project targets 17, so they are looked up reflectively and the
+   * generator falls back to platform threads on older runtimes.
+   */
+  private ExecutorService newExecutor() {
+    if (config.isVirtualThreads()) {
+      try {
+        return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+      } catch (ReflectiveOperationException e) {
+        System.out.println("virtual threads are not available on this JDK, using platform threads");
+      }
+    }
+    return Executors.newFixedThreadPool(config.getThreads());
+  }
+}
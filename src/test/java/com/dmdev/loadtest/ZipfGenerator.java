@@ -0,0 +1,29 @@
+package com.dmdev.loadtest;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Draws ranks 1..n with probability proportional to {@code 1 / rank^exponent} by binary search over the CDF.
+ */
+class ZipfGenerator {
+
+  private final double[] cumulativeProbabilities;
+
+  ZipfGenerator(int n, double exponent) {
+    cumulativeProbabilities = new double[n];
+    double sum = 0;
+    for (int rank = 1; rank <= n; rank++) {
+      sum += 1 / Math.pow(rank, exponent);
+      cumulativeProbabilities[rank - 1] = sum;
+    }
+    for (int i = 0; i < n; i++) {
+      cumulativeProbabilities[i] /= sum;
+    }
+  }
+
+  int next(RandomGenerator random) {
+    int index = Arrays.binarySearch(cumulativeProbabilities, random.nextDouble());
+    return Math.min(index >= 0 ? index : -index - 1, cumulativeProbabilities.length - 1) + 1;
+  }
+}
@@ -0,0 +1,25 @@
+package com.dmdev.loadtest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class ZipfGeneratorTest {
+
+  @Test
+  void lowRanksAreDrawnMostOften() {
+    ZipfGenerator generator = new ZipfGenerator(1000, 1.1);
+    Random random = new Random(42);
+    int[] counts = new int[1001];
+    for (int i = 0; i < 100_000; i++) {
+      int rank = generator.next(random);
+      assertThat(rank).isBetween(1, 1000);
+      counts[rank]++;
+    }
+
+    assertThat(counts[1]).isGreaterThan(counts[2]);
+    assertThat(counts[2]).isGreaterThan(counts[10]);
+    assertThat(counts[1]).isGreaterThan(100_000 / 10);
+  }
+}
@@ -0,0 +1,62 @@
+package com.dmdev.migration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.integration.IntegrationTestBase;
+import com.dmdev.util.ConnectionManager;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import org.junit.jupiter.api.Test;
+
+class SchemaMigratorIT extends IntegrationTestBase {
+
+  private final SchemaMigrator schemaMigrator = SchemaMigrator.getInstance();
+
+  @Test
+  void migrateIsIdempotent() throws SQLException {
+    int actualResult = schemaMigrator.migrate();
+
+    assertThat(actualResult).isEqualTo(schemaMigrator.getMigrations().size());
+    try (var connection = ConnectionManager.get();
+         var statement = connection.createStatement();
+         var resultSet = statement.executeQuery("SELECT COUNT(*) FROM schema_version")) {
+      resultSet.next();
+      assertThat(resultSet.getInt(1)).isEqualTo(schemaMigrator.getMigrations().size());
+    }
+  }
+
+  @Test
+  void storeEnumsAsCodesConvertsExistingRows() throws SQLException {
+    try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:enum-codes", "sa", "")) {
+      schemaMigrator.migrate(connection, 3);
+      try (var statement = connection.createStatement()) {
+        statement.execute("INSERT INTO subscription (user_id, name, provider, expiration_date, status) "
+            + "VALUES (1, 'first', 'APPLE', CURRENT_TIMESTAMP, 'EXPIRED'), "
+            + "(2, 'second', 'GOOGLE', CURRENT_TIMESTAMP, 'ACTIVE')");
+      }
+
+      int actualResult = schemaMigrator.migrate(connection, 4);
+
+      assertThat(actualResult).isEqualTo(4);
+      try (var statement = connection.createStatement();
+           var resultSet = statement.executeQuery("SELECT provider, status FROM subscription ORDER BY user_id")) {
+        resultSet.next();
+        assertThat(Provider.fromCode(resultSet.getInt(1))).isEqualTo(Provider.APPLE);
+        assertThat(Status.fromCode(resultSet.getInt(2))).isEqualTo(Status.EXPIRED);
+        resultSet.next();
+        assertThat(Provider.fromCode(resultSet.getInt(1))).isEqualTo(Provider.GOOGLE);
+        assertThat(Status.fromCode(resultSet.getInt(2))).isEqualTo(Status.ACTIVE);
+      }
+    }
+  }
+
+  @Test
+  void dialect() throws SQLException {
+    try (var connection = ConnectionManager.get()) {
+      assertThat(Dialect.of(connection)).isEqualTo(Dialect.H2);
+    }
+  }
+}
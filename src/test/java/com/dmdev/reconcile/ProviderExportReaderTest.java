@@ -0,0 +1,39 @@
+package com.dmdev.reconcile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.StringReader;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ProviderExportReaderTest {
+
+  @Test
+  void readsRecordsSkippingHeaderAndBlankLines() {
+    String export = "user_id,name,expiration_date\n"
+        + "1,basic,2030-01-01T00:00:00Z\n"
+        + "\n"
+        + "2,family, premium,2030-02-01T00:00:00Z\n";
+    List<ProviderRecord> records = new ArrayList<>();
+
+    try (ProviderExportReader reader = new ProviderExportReader(new StringReader(export))) {
+      reader.forEachRemaining(records::add);
+    }
+
+    assertThat(records).containsExactly(
+        new ProviderRecord(1, "basic", Instant.parse("2030-01-01T00:00:00Z")),
+        new ProviderRecord(2, "family, premium", Instant.parse("2030-02-01T00:00:00Z")));
+  }
+
+  @Test
+  void invalidLineIsReportedWithItsNumber() {
+    ProviderExportReader reader = new ProviderExportReader(new StringReader("1,basic,2030-01-01T00:00:00Z\n2,basic\n"));
+    reader.next();
+
+    var exception = assertThrows(IllegalArgumentException.class, reader::next);
+    assertThat(exception.getMessage()).contains("line 2");
+  }
+}
@@ -0,0 +1,187 @@
+package com.dmdev.reconcile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.dmdev.cache.SubscriptionCache;
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.feed.ChangeFeedLog;
+import com.dmdev.integration.IntegrationTestBase;
+import com.dmdev.reconcile.SubscriptionDiff.Type;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ProviderReconcilerIT extends IntegrationTestBase {
+
+  private final Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+  private final Clock clock = Clock.fixed(now, ZoneOffset.UTC);
+  private final SubscriptionDao subscriptionDao = SubscriptionDao.getInstance();
+  private final ProviderReconciler reconciler = new ProviderReconciler(subscriptionDao, clock, 2);
+
+  @Test
+  void reconcileAppliesNewExtendedAndMissing() {
+    Instant stored = now.plus(10, ChronoUnit.DAYS);
+    Instant extended = now.plus(40, ChronoUnit.DAYS);
+    Subscription unchanged = subscriptionDao.insert(getSubscription(1, "basic", Provider.GOOGLE, stored, Status.ACTIVE));
+    Subscription prolonged = subscriptionDao.insert(getSubscription(1, "premium", Provider.GOOGLE, stored, Status.CANCELED));
+    Subscription missing = subscriptionDao.insert(getSubscription(2, "basic", Provider.GOOGLE, stored, Status.ACTIVE));
+    Subscription otherProvider = subscriptionDao.insert(getSubscription(3, "basic", Provider.APPLE, stored, Status.ACTIVE));
+    List<SubscriptionDiff> diffs = new ArrayList<>();
+
+    ReconciliationResult result = reconciler.reconcile(Provider.GOOGLE, List.of(
+        new ProviderRecord(1, "basic", stored),
+        new ProviderRecord(1, "premium", extended),
+        new ProviderRecord(3, "family", extended),
+        new ProviderRecord(4, "basic", now.minus(1, ChronoUnit.DAYS))).iterator(), diffs::add);
+
+    assertThat(diffs).extracting(SubscriptionDiff::getType)
+        .containsExactly(Type.EXTENDED, Type.MISSING, Type.NEW, Type.NEW);
+    assertThat(result.getProviderRecords()).isEqualTo(4);
+    assertThat(result.getCreated()).isEqualTo(2);
+    assertThat(result.getExtended()).isEqualTo(1);
+    assertThat(result.getExpired()).isEqualTo(1);
+    assertThat(result.getUnchanged()).isEqualTo(1);
+    assertThat(subscriptionDao.findById(unchanged.getId())).contains(unchanged);
+    Subscription actualProlonged = subscriptionDao.findById(prolonged.getId()).orElseThrow();
+    assertThat(actualProlonged.getStatus()).isEqualByComparingTo(Status.ACTIVE);
+    assertThat(actualProlonged.getExpirationDate()).isEqualTo(extended);
+    Subscription actualMissing = subscriptionDao.findById(missing.getId()).orElseThrow();
+    assertThat(actualMissing.getStatus()).isEqualByComparingTo(Status.EXPIRED);
+    assertThat(actualMissing.getExpirationDate()).isEqualTo(now);
+    assertThat(subscriptionDao.findById(otherProvider.getId())).contains(otherProvider);
+    assertThat(subscriptionDao.findByUserId(3)).extracting(Subscription::getName).containsExactlyInAnyOrder("basic", "family");
+    assertThat(subscriptionDao.findByUserId(4)).singleElement()
+        .extracting(Subscription::getStatus).isEqualTo(Status.EXPIRED);
+  }
+
+  @Test
+  void listenersSeeWrittenChangesAndRestoredCacheKeepsThem(@TempDir Path directory) {
+    Instant stored = now.plus(10, ChronoUnit.DAYS);
+    Subscription missing = subscriptionDao.insert(getSubscription(1, "basic", Provider.GOOGLE, stored, Status.ACTIVE));
+    var cache = new SubscriptionCache(subscriptionDao, clock);
+    cache.restore(directory.resolve("none.snapshot"), null);
+    Path snapshot = directory.resolve("subscriptions.snapshot");
+    try (var changeFeed = new ChangeFeedLog(directory.resolve("feed"), 16, 4)) {
+      cache.writeSnapshot(snapshot, changeFeed);
+      reconciler.addListener(changeFeed);
+      reconciler.addListener(cache);
+
+      reconciler.reconcile(Provider.GOOGLE, List.of(
+          new ProviderRecord(2, "basic", stored),
+          new ProviderRecord(2, "premium", stored)).iterator());
+
+      assertThat(changeFeed.getEndOffset()).isEqualTo(3);
+      assertThat(cache.findById(missing.getId())).get()
+          .extracting(Subscription::getStatus).isEqualTo(Status.EXPIRED);
+      assertThat(cache.findByUserId(2)).hasSize(2).allSatisfy(subscription -> {
+        assertThat(subscription.getId()).isNotNull();
+        assertThat(subscriptionDao.findById(subscription.getId())).contains(subscription);
+      });
+
+      var restored = new SubscriptionCache(subscriptionDao, clock);
+      assertThat(restored.restore(snapshot, changeFeed)).isTrue();
+      assertThat(restored.findById(missing.getId())).get()
+          .extracting(Subscription::getStatus).isEqualTo(Status.EXPIRED);
+      assertThat(restored.findByUserId(2)).hasSize(2);
+    }
+  }
+
+  @Test
+  void reconcileIsIdempotent() {
+    List<ProviderRecord> export = IntStream.range(0, 25)
+        .mapToObj(i -> new ProviderRecord(i, "basic", now.plus(i + 1, ChronoUnit.DAYS)))
+        .toList();
+    reconciler.reconcile(Provider.APPLE, export.iterator());
+
+    ReconciliationResult result = reconciler.reconcile(Provider.APPLE, export.iterator());
+
+    assertThat(result.getUnchanged()).isEqualTo(25);
+    assertThat(result.getCreated() + result.getExtended() + result.getExpired()).isZero();
+    assertThat(subscriptionDao.findAll()).hasSize(25);
+  }
+
+  @Test
+  void keyStoredForAnotherProviderIsAConflict() {
+    Instant expiration = now.plus(10, ChronoUnit.DAYS);
+    subscriptionDao.insert(getSubscription(1, "basic", Provider.APPLE, expiration, Status.ACTIVE));
+
+    ReconciliationResult result = reconciler.reconcile(Provider.GOOGLE, List.of(
+        new ProviderRecord(1, "basic", expiration),
+        new ProviderRecord(1, "premium", expiration)).iterator());
+
+    assertThat(result.getConflicts()).isEqualTo(1);
+    assertThat(result.getCreated()).isEqualTo(1);
+    assertThat(subscriptionDao.findByUserId(1)).hasSize(2);
+  }
+
+  @Test
+  void subscriptionChangedAfterItWasReadIsSkipped() {
+    Instant stored = now.plus(10, ChronoUnit.DAYS);
+    Subscription canceled = subscriptionDao.insert(getSubscription(1, "basic", Provider.GOOGLE, stored, Status.ACTIVE));
+    Subscription prolonged = subscriptionDao.insert(getSubscription(2, "basic", Provider.GOOGLE, stored, Status.ACTIVE));
+
+    ReconciliationResult result = reconciler.reconcile(Provider.GOOGLE, List.of(
+        new ProviderRecord(1, "basic", now.plus(40, ChronoUnit.DAYS))).iterator(), diff -> {
+          subscriptionDao.update(subscriptionDao.findById(canceled.getId()).orElseThrow().setStatus(Status.CANCELED));
+          subscriptionDao.update(subscriptionDao.findById(prolonged.getId()).orElseThrow()
+              .setExpirationDate(now.plus(20, ChronoUnit.DAYS)));
+        });
+
+    assertThat(result.getSkipped()).isEqualTo(2);
+    assertThat(result.getExtended() + result.getExpired()).isZero();
+    assertThat(subscriptionDao.findById(canceled.getId())).get().satisfies(subscription -> {
+      assertThat(subscription.getStatus()).isEqualTo(Status.CANCELED);
+      assertThat(subscription.getExpirationDate()).isEqualTo(stored);
+    });
+    assertThat(subscriptionDao.findById(prolonged.getId())).get().satisfies(subscription -> {
+      assertThat(subscription.getStatus()).isEqualTo(Status.ACTIVE);
+      assertThat(subscription.getExpirationDate()).isEqualTo(now.plus(20, ChronoUnit.DAYS));
+    });
+  }
+
+  @Test
+  void diffDoesNotWrite() {
+    subscriptionDao.insert(getSubscription(1, "basic", Provider.GOOGLE, now.plus(1, ChronoUnit.DAYS), Status.ACTIVE));
+    List<SubscriptionDiff> diffs = new ArrayList<>();
+
+    reconciler.diff(Provider.GOOGLE, List.of(new ProviderRecord(2, "basic", now.plus(1, ChronoUnit.DAYS))).iterator(),
+        diffs::add);
+
+    assertThat(diffs).extracting(SubscriptionDiff::getType).containsExactly(Type.MISSING, Type.NEW);
+    assertThat(subscriptionDao.findAll()).singleElement()
+        .extracting(Subscription::getStatus).isEqualTo(Status.ACTIVE);
+  }
+
+  @Test
+  void unsortedExportIsRejected() {
+    Iterator<ProviderRecord> export = List.of(
+        new ProviderRecord(2, "basic", now),
+        new ProviderRecord(1, "basic", now)).iterator();
+
+    assertThrows(IllegalArgumentException.class, () -> reconciler.diff(Provider.GOOGLE, export, diff -> {
+    }));
+  }
+
+  private Subscription getSubscription(Integer userId, String name, Provider provider, Instant expirationDate,
+                                       Status status) {
+    return Subscription.builder()
+        .userId(userId)
+        .name(name)
+        .provider(provider)
+        .expirationDate(expirationDate)
+        .status(status)
+        .build();
+  }
+}
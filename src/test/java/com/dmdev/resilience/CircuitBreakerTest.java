@@ -0,0 +1,150 @@
+package com.dmdev.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.dmdev.exception.CircuitBreakerOpenException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+
+  private final AtomicLong nanoTime = new AtomicLong();
+  private final CircuitBreaker circuitBreaker = new CircuitBreaker("test", CircuitBreakerConfig.builder()
+      .failureRateThreshold(0.5)
+      .slidingWindowSize(4)
+      .minimumCalls(4)
+      .openDuration(Duration.ofSeconds(10))
+      .halfOpenProbes(2)
+      .build(), nanoTime::get);
+
+  @Test
+  void opensWhenFailureRateReachesThreshold() {
+    call(true);
+    call(false);
+    call(true);
+    assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+    call(false);
+
+    assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    assertThat(circuitBreaker.getOpenedCount()).isEqualTo(1);
+    assertThrows(CircuitBreakerOpenException.class, circuitBreaker::acquirePermission);
+    assertThat(circuitBreaker.getNotPermittedCount()).isEqualTo(1);
+  }
+
+  @Test
+  void slidingWindowForgetsOldOutcomes() {
+    call(true);
+    call(true);
+    call(true);
+    call(false);
+    assertThat(circuitBreaker.getFailureRate()).isEqualTo(0.25);
+
+    for (int i = 0; i < 4; i++) {
+      call(true);
+    }
+
+    assertThat(circuitBreaker.getFailureRate()).isZero();
+    assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+  }
+
+  @Test
+  void closesAfterSuccessfulProbes() {
+    open();
+    nanoTime.addAndGet(Duration.ofSeconds(10).toNanos());
+
+    call(true);
+    assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+    call(true);
+
+    assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    assertThat(circuitBreaker.getFailureRate()).isZero();
+  }
+
+  @Test
+  void reopensWhenProbeFails() {
+    open();
+    nanoTime.addAndGet(Duration.ofSeconds(10).toNanos());
+
+    call(false);
+
+    assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    assertThat(circuitBreaker.getOpenedCount()).isEqualTo(2);
+  }
+
+  @Test
+  void limitsConcurrentProbes() {
+    open();
+    nanoTime.addAndGet(Duration.ofSeconds(10).toNanos());
+
+    circuitBreaker.acquirePermission();
+    circuitBreaker.acquirePermission();
+
+    assertThrows(CircuitBreakerOpenException.class, circuitBreaker::acquirePermission);
+  }
+
+  @Test
+  void callsPermittedBeforeOpeningDoNotCountAsProbes() {
+    CircuitBreaker.Permit slowSuccess = circuitBreaker.acquirePermission();
+    CircuitBreaker.Permit slowFailure = circuitBreaker.acquirePermission();
+    open();
+    nanoTime.addAndGet(Duration.ofSeconds(10).toNanos());
+    CircuitBreaker.Permit probe = circuitBreaker.acquirePermission();
+
+    circuitBreaker.onSuccess(slowSuccess);
+    circuitBreaker.onSuccess(slowSuccess);
+    circuitBreaker.onFailure(slowFailure);
+    assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+
+    circuitBreaker.onSuccess(probe);
+    call(true);
+
+    assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+  }
+
+  @Test
+  void probeOfEarlierHalfOpenPeriodDoesNotCount() {
+    open();
+    nanoTime.addAndGet(Duration.ofSeconds(10).toNanos());
+    CircuitBreaker.Permit staleProbe = circuitBreaker.acquirePermission();
+    call(false);
+    nanoTime.addAndGet(Duration.ofSeconds(10).toNanos());
+    CircuitBreaker.Permit probe = circuitBreaker.acquirePermission();
+
+    circuitBreaker.onSuccess(staleProbe);
+    circuitBreaker.onSuccess(probe);
+
+    assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+  }
+
+  @Test
+  void releasedProbeFreesItsSlot() {
+    open();
+    nanoTime.addAndGet(Duration.ofSeconds(10).toNanos());
+    circuitBreaker.release(circuitBreaker.acquirePermission());
+    circuitBreaker.release(circuitBreaker.acquirePermission());
+
+    call(true);
+    call(true);
+
+    assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+  }
+
+  private void open() {
+    for (int i = 0; i < 4; i++) {
+      call(false);
+    }
+    assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+  }
+
+  private void call(boolean success) {
+    CircuitBreaker.Permit permit = circuitBreaker.acquirePermission();
+    if (success) {
+      circuitBreaker.onSuccess(permit);
+    } else {
+      circuitBreaker.onFailure(permit);
+    }
+  }
+}
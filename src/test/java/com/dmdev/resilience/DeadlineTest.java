@@ -0,0 +1,35 @@
+package com.dmdev.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class DeadlineTest {
+
+  @Test
+  void withinExposesDeadlineToCurrentThreadOnly() {
+    assertThat(Deadline.current()).isEmpty();
+
+    Duration actualResult = Deadline.within(Duration.ofSeconds(5),
+        () -> Deadline.current().orElseThrow().remaining());
+
+    assertThat(actualResult).isPositive().isLessThanOrEqualTo(Duration.ofSeconds(5));
+    assertThat(Deadline.current()).isEmpty();
+  }
+
+  @Test
+  void nestedDeadlineCannotExtendEnclosingOne() {
+    Duration actualResult = Deadline.within(Duration.ofSeconds(1),
+        () -> Deadline.within(Duration.ofMinutes(1), () -> Deadline.current().orElseThrow().remaining()));
+
+    assertThat(actualResult).isLessThanOrEqualTo(Duration.ofSeconds(1));
+  }
+
+  @Test
+  void remainingSecondsIsRoundedUp() {
+    assertThat(Deadline.after(Duration.ofMillis(1500)).remainingSeconds()).isEqualTo(2);
+    assertThat(Deadline.after(Duration.ZERO).remainingSeconds()).isEqualTo(1);
+    assertThat(Deadline.after(Duration.ZERO).isExpired()).isTrue();
+  }
+}
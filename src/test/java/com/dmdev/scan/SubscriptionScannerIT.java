@@ -0,0 +1,86 @@
+package com.dmdev.scan;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.integration.IntegrationTestBase;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class SubscriptionScannerIT extends IntegrationTestBase {
+
+  private final SubscriptionDao subscriptionDao = SubscriptionDao.getInstance();
+
+  @Test
+  void scanVisitsEverySubscriptionOnceAndReportsProgress() {
+    Set<Integer> expectedIds = IntStream.range(0, 100)
+        .mapToObj(i -> subscriptionDao.insert(getSubscription(i)).getId())
+        .collect(Collectors.toSet());
+    Set<Integer> scannedIds = ConcurrentHashMap.newKeySet();
+    List<ScanProgress> progress = new CopyOnWriteArrayList<>();
+    SubscriptionScanner scanner = new SubscriptionScanner(subscriptionDao, 8, 4);
+
+    ScanProgress result = scanner.scan(subscription -> {
+      assertThat(scannedIds.add(subscription.getId())).isTrue();
+    }, progress::add);
+
+    assertThat(scannedIds).isEqualTo(expectedIds);
+    assertThat(result.getRows()).isEqualTo(100);
+    assertThat(result.isDone()).isTrue();
+    assertThat(result.getTotalPartitions()).isEqualTo(8);
+    assertThat(progress).hasSize(8);
+    assertThat(progress.get(progress.size() - 1).getCompletedPartitions()).isEqualTo(8);
+  }
+
+  @Test
+  void scanOfEmptyTableReturnsImmediately() {
+    ScanProgress result = new SubscriptionScanner(subscriptionDao, 8, 4).scan(subscription -> {
+    });
+
+    assertThat(result.getRows()).isZero();
+    assertThat(result.isDone()).isTrue();
+  }
+
+  @Test
+  void consumerFailureStopsScan() {
+    IntStream.range(0, 50).forEach(i -> subscriptionDao.insert(getSubscription(i)));
+    IllegalStateException failure = new IllegalStateException("consumer failed");
+
+    var exception = assertThrows(IllegalStateException.class,
+        () -> new SubscriptionScanner(subscriptionDao, 4, 2).scan(subscription -> {
+          throw failure;
+        }));
+
+    assertThat(exception).isSameAs(failure);
+  }
+
+  @Test
+  void splitCoversRangeWithoutOverlap() {
+    SubscriptionScanner scanner = new SubscriptionScanner(subscriptionDao, 3, 1);
+
+    assertThat(scanner.split(1, 10)).containsExactly(new int[]{1, 4}, new int[]{5, 8}, new int[]{9, 10});
+    assertThat(scanner.split(Integer.MAX_VALUE - 1, Integer.MAX_VALUE))
+        .containsExactly(new int[]{Integer.MAX_VALUE - 1, Integer.MAX_VALUE - 1}, new int[]{Integer.MAX_VALUE, Integer.MAX_VALUE});
+  }
+
+  private Subscription getSubscription(int i) {
+    return Subscription.builder()
+        .userId(i)
+        .name("scan")
+        .provider(Provider.values()[i % 2])
+        .expirationDate(Instant.now().plus(10, ChronoUnit.DAYS))
+        .status(Status.ACTIVE)
+        .build();
+  }
+}
@@ -0,0 +1,163 @@
+package com.dmdev.scheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dmdev.admission.AdmissionConfig;
+import com.dmdev.admission.AdmissionController;
+import com.dmdev.admission.Operation;
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.dto.CreateSubscriptionDto;
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.exception.OverloadException;
+import com.dmdev.integration.IntegrationTestBase;
+import com.dmdev.mapper.CreateSubscriptionMapper;
+import com.dmdev.service.SubscriptionService;
+import com.dmdev.validator.CreateSubscriptionValidator;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ExpirationSchedulerIT extends IntegrationTestBase {
+
+  private final MutableClock clock = new MutableClock(Instant.now().truncatedTo(ChronoUnit.SECONDS));
+  private SubscriptionDao subscriptionDao;
+  private SubscriptionService service;
+  private ExpirationScheduler scheduler;
+
+  @BeforeEach
+  void init() {
+    subscriptionDao = SubscriptionDao.getInstance();
+    service = new SubscriptionService(
+        subscriptionDao,
+        CreateSubscriptionMapper.getInstance(),
+        CreateSubscriptionValidator.getInstance(),
+        clock
+    );
+    scheduler = new ExpirationScheduler(subscriptionDao, service, clock, Duration.ofSeconds(1), Duration.ofHours(1), 2);
+    service.addListener(scheduler);
+  }
+
+  @Test
+  void expireDueLoadsWindowAndExpiresInBatches() {
+    Subscription first = subscriptionDao.insert(getSubscription(1, "first", clock.instant().minusSeconds(10)));
+    Subscription second = subscriptionDao.insert(getSubscription(2, "second", clock.instant().minusSeconds(5)));
+    Subscription third = subscriptionDao.insert(getSubscription(3, "third", clock.instant().plusSeconds(30)));
+    subscriptionDao.insert(getSubscription(4, "outside", clock.instant().plus(2, ChronoUnit.HOURS)));
+
+    scheduler.loadWindow();
+    assertThat(scheduler.getScheduledCount()).isEqualTo(3);
+    assertThat(scheduler.expireDue()).isEqualTo(2);
+    assertThat(scheduler.getScheduledCount()).isEqualTo(1);
+
+    assertThat(subscriptionDao.findById(first.getId()).orElseThrow().getStatus()).isEqualTo(Status.EXPIRED);
+    assertThat(subscriptionDao.findById(second.getId()).orElseThrow().getStatus()).isEqualTo(Status.EXPIRED);
+    assertThat(subscriptionDao.findById(third.getId()).orElseThrow().getStatus()).isEqualTo(Status.ACTIVE);
+
+    clock.advance(Duration.ofSeconds(31));
+    assertThat(scheduler.expireDue()).isEqualTo(1);
+    assertThat(subscriptionDao.findById(third.getId()).orElseThrow().getStatus()).isEqualTo(Status.EXPIRED);
+  }
+
+  @Test
+  void upsertProlongationIsPickedUpIncrementally() {
+    Instant expirationDate = Instant.now().plusSeconds(60);
+    clock.set(expirationDate.minusSeconds(30));
+    scheduler.loadWindow();
+    Subscription subscription = service.upsert(CreateSubscriptionDto.builder()
+        .userId(1)
+        .name("prolonged")
+        .provider(Provider.GOOGLE.name())
+        .expirationDate(expirationDate)
+        .build());
+    assertThat(scheduler.getScheduledCount()).isEqualTo(1);
+
+    service.upsert(CreateSubscriptionDto.builder()
+        .userId(1)
+        .name("prolonged")
+        .provider(Provider.GOOGLE.name())
+        .expirationDate(expirationDate.plus(1, ChronoUnit.DAYS))
+        .build());
+    clock.advance(Duration.ofMinutes(1));
+
+    assertThat(scheduler.getScheduledCount()).isZero();
+    assertThat(scheduler.expireDue()).isZero();
+    assertThat(subscriptionDao.findById(subscription.getId()).orElseThrow().getStatus()).isEqualTo(Status.ACTIVE);
+  }
+
+  @Test
+  void subscriptionsNotExpiredBecauseOfOverloadStayPending() {
+    Subscription first = subscriptionDao.insert(getSubscription(1, "first", clock.instant().minusSeconds(10)));
+    Subscription second = subscriptionDao.insert(getSubscription(2, "second", clock.instant().minusSeconds(5)));
+    var rejecting = new AtomicBoolean(true);
+    service.setAdmissionController(new AdmissionController(AdmissionConfig.builder().build()) {
+      @Override
+      public <T> T execute(Operation operation, Supplier<T> action) {
+        if (rejecting.get()) {
+          throw new OverloadException(operation + " rejected");
+        }
+        return super.execute(operation, action);
+      }
+    });
+    scheduler.loadWindow();
+
+    assertThat(scheduler.expireDue()).isZero();
+    assertThat(scheduler.getPendingCount()).isEqualTo(2);
+
+    rejecting.set(false);
+    assertThat(scheduler.expireDue()).isEqualTo(2);
+    assertThat(scheduler.getPendingCount()).isZero();
+    assertThat(subscriptionDao.findById(first.getId()).orElseThrow().getStatus()).isEqualTo(Status.EXPIRED);
+    assertThat(subscriptionDao.findById(second.getId()).orElseThrow().getStatus()).isEqualTo(Status.EXPIRED);
+  }
+
+  private Subscription getSubscription(Integer userId, String name, Instant expirationDate) {
+    return Subscription.builder()
+        .userId(userId)
+        .name(name)
+        .provider(Provider.GOOGLE)
+        .expirationDate(expirationDate)
+        .status(Status.ACTIVE)
+        .build();
+  }
+
+  private static class MutableClock extends Clock {
+
+    private Instant instant;
+
+    MutableClock(Instant instant) {
+      this.instant = instant;
+    }
+
+    void set(Instant instant) {
+      this.instant = instant;
+    }
+
+    void advance(Duration duration) {
+      instant = instant.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+}
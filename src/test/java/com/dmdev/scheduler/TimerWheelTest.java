@@ -0,0 +1,80 @@
+package com.dmdev.scheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class TimerWheelTest {
+
+  private final TimerWheel<Integer> timerWheel = new TimerWheel<>(10, 4, 3, 0);
+
+  @Test
+  void advanceFiresOnlyDueKeys() {
+    timerWheel.schedule(1, 25);
+    timerWheel.schedule(2, 35);
+
+    assertThat(timerWheel.advance(20)).isEmpty();
+    assertThat(timerWheel.advance(30)).containsExactly(1);
+    assertThat(timerWheel.advance(40)).containsExactly(2);
+    assertThat(timerWheel.size()).isZero();
+  }
+
+  @Test
+  void advanceCascadesFromHigherLevels() {
+    timerWheel.schedule(1, 170);
+    timerWheel.schedule(2, 630);
+
+    assertThat(timerWheel.advance(160)).isEmpty();
+    assertThat(timerWheel.advance(170)).containsExactly(1);
+    assertThat(timerWheel.advance(620)).isEmpty();
+    assertThat(timerWheel.advance(630)).containsExactly(2);
+  }
+
+  @Test
+  void advanceFiresOverdueKeysImmediately() {
+    timerWheel.advance(100);
+
+    timerWheel.schedule(1, 50);
+
+    assertThat(timerWheel.advance(100)).containsExactly(1);
+  }
+
+  @Test
+  void scheduleReplacesPreviousDeadline() {
+    timerWheel.schedule(1, 30);
+    timerWheel.schedule(1, 90);
+
+    assertThat(timerWheel.advance(80)).isEmpty();
+    assertThat(timerWheel.advance(90)).containsExactly(1);
+  }
+
+  @Test
+  void scheduleBeyondHorizonIsRejected() {
+    boolean actualResult = timerWheel.schedule(1, timerWheel.getHorizonMillis());
+
+    assertThat(actualResult).isFalse();
+    assertThat(timerWheel.contains(1)).isFalse();
+  }
+
+  @Test
+  void cancel() {
+    timerWheel.schedule(1, 30);
+
+    boolean actualResult = timerWheel.cancel(1);
+
+    assertThat(actualResult).isTrue();
+    assertThat(timerWheel.advance(100)).isEmpty();
+  }
+
+  @Test
+  void advanceFiresManyKeysInDeadlineOrder() {
+    for (int i = 63; i >= 0; i--) {
+      timerWheel.schedule(i, i * 10L);
+    }
+
+    List<Integer> actualResult = timerWheel.advance(630);
+
+    assertThat(actualResult).hasSize(64).isSorted();
+  }
+}
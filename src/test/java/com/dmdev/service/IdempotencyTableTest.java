@@ -0,0 +1,161 @@
+package com.dmdev.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class IdempotencyTableTest {
+
+  private final Instant now = Instant.now();
+  private final IdempotencyTable idempotencyTable =
+      new IdempotencyTable(2, Duration.ofMinutes(1), Clock.fixed(now, ZoneId.systemDefault()));
+
+  @Test
+  void executeReturnsStoredResultForRepeatedKey() {
+    AtomicInteger calls = new AtomicInteger();
+
+    Subscription first = idempotencyTable.execute("key", () -> getSubscription(calls.incrementAndGet()));
+    Subscription second = idempotencyTable.execute("key", () -> getSubscription(calls.incrementAndGet()));
+
+    assertThat(calls).hasValue(1);
+    assertThat(second).isEqualTo(first).isNotSameAs(first);
+  }
+
+  @Test
+  void executeIsBoundedByCapacity() {
+    AtomicInteger calls = new AtomicInteger();
+
+    idempotencyTable.execute("first", () -> getSubscription(calls.incrementAndGet()));
+    idempotencyTable.execute("second", () -> getSubscription(calls.incrementAndGet()));
+    idempotencyTable.execute("third", () -> getSubscription(calls.incrementAndGet()));
+    idempotencyTable.execute("first", () -> getSubscription(calls.incrementAndGet()));
+
+    assertThat(idempotencyTable.size()).isEqualTo(2);
+    assertThat(calls).hasValue(4);
+  }
+
+  @Test
+  void executeForgetsExpiredKeys() {
+    MutableClock clock = new MutableClock(now);
+    IdempotencyTable table = new IdempotencyTable(10, Duration.ofMinutes(1), clock);
+    AtomicInteger calls = new AtomicInteger();
+
+    table.execute("key", () -> getSubscription(calls.incrementAndGet()));
+    clock.instant = now.plus(Duration.ofMinutes(2));
+    table.execute("key", () -> getSubscription(calls.incrementAndGet()));
+
+    assertThat(calls).hasValue(2);
+  }
+
+  @Test
+  void executeFailureIsNotStored() {
+    assertThrows(IllegalStateException.class, () -> idempotencyTable.execute("key", () -> {
+      throw new IllegalStateException();
+    }));
+
+    Subscription actualResult = idempotencyTable.execute("key", () -> getSubscription(1));
+
+    assertThat(actualResult.getId()).isEqualTo(1);
+  }
+
+  @Test
+  void executeConcurrentDuplicateWaitsForFirst() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger calls = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<Subscription> first = executor.submit(() -> idempotencyTable.execute("key", () -> {
+        started.countDown();
+        await(release);
+        return getSubscription(calls.incrementAndGet());
+      }));
+      started.await();
+      Future<Subscription> duplicate = executor.submit(() -> idempotencyTable.execute("key", () ->
+          getSubscription(calls.incrementAndGet())));
+      release.countDown();
+
+      assertThat(duplicate.get(5, TimeUnit.SECONDS)).isEqualTo(first.get(5, TimeUnit.SECONDS));
+      assertThat(calls).hasValue(1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void executeOverCapacityKeepsInFlightKey() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger calls = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<Subscription> first = executor.submit(() -> idempotencyTable.execute("key", () -> {
+        started.countDown();
+        await(release);
+        return getSubscription(calls.incrementAndGet());
+      }));
+      started.await();
+      idempotencyTable.execute("second", () -> getSubscription(100));
+      idempotencyTable.execute("third", () -> getSubscription(101));
+      idempotencyTable.execute("fourth", () -> getSubscription(102));
+      Future<Subscription> retry = executor.submit(() -> idempotencyTable.execute("key", () ->
+          getSubscription(calls.incrementAndGet())));
+      release.countDown();
+
+      assertThat(retry.get(5, TimeUnit.SECONDS)).isEqualTo(first.get(5, TimeUnit.SECONDS));
+      assertThat(calls).hasValue(1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static Subscription getSubscription(Integer id) {
+    return new Subscription(id, 1, "name", Provider.GOOGLE, Instant.now(), Status.ACTIVE);
+  }
+
+  private static class MutableClock extends Clock {
+
+    private Instant instant;
+
+    MutableClock(Instant instant) {
+      this.instant = instant;
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneId.systemDefault();
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+}
@@ -2,6 +2,7 @@ package com.dmdev.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import com.dmdev.dao.IdempotencyKeyDao;
 import com.dmdev.dao.SubscriptionDao;
 import com.dmdev.dto.CreateSubscriptionDto;
 import com.dmdev.entity.Provider;
@@ -11,10 +12,18 @@ import com.dmdev.integration.IntegrationTestBase;
 import com.dmdev.mapper.CreateSubscriptionMapper;
 import com.dmdev.validator.CreateSubscriptionValidator;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -55,6 +64,82 @@ class SubscriptionServiceIT extends IntegrationTestBase {
     assertThat(actualResult.getExpirationDate()).isEqualTo(createSubscriptionDto.getExpirationDate());
   }
 
+  @Test
+  void upsertWithPersistedIdempotencyKey() {
+    CreateSubscriptionDto createSubscriptionDto = CreateSubscriptionDto.builder()
+        .userId(100)
+        .name("idempotent")
+        .provider(Provider.GOOGLE.name())
+        .expirationDate(Instant.now().plus(60, ChronoUnit.DAYS))
+        .build();
+    service.setIdempotencyTable(new IdempotencyTable(10, Duration.ofMinutes(10), clock,
+        IdempotencyKeyDao.getInstance(), subscriptionDao));
+    Subscription first = service.upsert("request-1", createSubscriptionDto);
+    service.setIdempotencyTable(new IdempotencyTable(10, Duration.ofMinutes(10), clock,
+        IdempotencyKeyDao.getInstance(), subscriptionDao));
+
+    Subscription actualResult = service.upsert("request-1", createSubscriptionDto);
+
+    assertThat(actualResult).isEqualTo(first);
+    assertThat(subscriptionDao.findByUserId(100)).hasSize(1);
+  }
+
+  @Test
+  void purgeDeletesOnlyExpiredPersistedKeys() {
+    CreateSubscriptionDto createSubscriptionDto = CreateSubscriptionDto.builder()
+        .userId(100)
+        .name("idempotent")
+        .provider(Provider.GOOGLE.name())
+        .expirationDate(Instant.now().plus(60, ChronoUnit.DAYS))
+        .build();
+    IdempotencyKeyDao idempotencyKeyDao = IdempotencyKeyDao.getInstance();
+    idempotencyKeyDao.deleteExpired(Instant.now().plus(3650, ChronoUnit.DAYS));
+    service.setIdempotencyTable(new IdempotencyTable(10, Duration.ofMinutes(10), clock,
+        idempotencyKeyDao, subscriptionDao));
+    service.upsert("short-lived", createSubscriptionDto);
+    service.setIdempotencyTable(new IdempotencyTable(10, Duration.ofDays(1), clock,
+        idempotencyKeyDao, subscriptionDao));
+    service.upsert("long-lived", createSubscriptionDto);
+    var later = Clock.offset(clock, Duration.ofHours(1));
+
+    int actualResult = new IdempotencyTable(10, Duration.ofMinutes(10), later, idempotencyKeyDao, subscriptionDao)
+        .purgeExpired();
+
+    assertThat(actualResult).isEqualTo(1);
+    assertThat(idempotencyKeyDao.findSubscriptionId("short-lived", clock.instant())).isEmpty();
+    assertThat(idempotencyKeyDao.findSubscriptionId("long-lived", later.instant())).isPresent();
+  }
+
+  @Test
+  void concurrentUpsertsOfSameSubscriptionAllSucceed() throws Exception {
+    int threads = 16;
+    CreateSubscriptionDto createSubscriptionDto = CreateSubscriptionDto.builder()
+        .userId(100)
+        .name("race")
+        .provider(Provider.GOOGLE.name())
+        .expirationDate(Instant.now().plus(60, ChronoUnit.DAYS))
+        .build();
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Subscription>> results = new ArrayList<>();
+    try {
+      for (int i = 0; i < threads; i++) {
+        results.add(executor.submit(() -> {
+          start.await();
+          return service.upsert(createSubscriptionDto);
+        }));
+      }
+      start.countDown();
+
+      for (Future<Subscription> result : results) {
+        assertThat(result.get(30, TimeUnit.SECONDS).getStatus()).isEqualByComparingTo(Status.ACTIVE);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(subscriptionDao.findByUserId(100)).hasSize(1);
+  }
+
   @Test
   void cancel() {
     Subscription subscription = getActiveSubscriptionForUserId(100, "cansel");
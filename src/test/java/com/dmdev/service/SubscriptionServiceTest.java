@@ -14,8 +14,10 @@ import com.dmdev.dto.CreateSubscriptionDto;
 import com.dmdev.entity.Provider;
 import com.dmdev.entity.Status;
 import com.dmdev.entity.Subscription;
+import com.dmdev.exception.DuplicateKeyException;
 import com.dmdev.exception.SubscriptionException;
 import com.dmdev.exception.ValidationException;
+import com.dmdev.filter.SubscriptionKeyFilter;
 import com.dmdev.mapper.CreateSubscriptionMapper;
 import com.dmdev.validator.CreateSubscriptionValidator;
 import com.dmdev.validator.Error;
@@ -95,6 +97,120 @@ class SubscriptionServiceTest {
     assertThat(actualResult).isEqualTo(newSubscription);
   }
 
+  @Test
+  void upsertWithRepeatedIdempotencyKeyDoesNotTouchDao() {
+    Integer userId = 1;
+    CreateSubscriptionDto createSubscriptionDto = CreateSubscriptionDto.builder()
+        .userId(userId)
+        .name("retried")
+        .provider("google")
+        .expirationDate(Instant.now().plus(30, ChronoUnit.DAYS))
+        .build();
+    doReturn(new ValidationResult()).when(createSubscriptionValidator).validate(createSubscriptionDto);
+    doReturn(List.of()).when(subscriptionDao).findByUserId(userId);
+    doReturn(getActiveSubscriptionForUserId(userId, "retried")).when(createSubscriptionMapper).map(createSubscriptionDto);
+    when(subscriptionDao.upsert(any(Subscription.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+    Subscription first = service.upsert("request-1", createSubscriptionDto);
+    Subscription retried = service.upsert("request-1", createSubscriptionDto);
+
+    assertThat(retried).isEqualTo(first);
+    verify(subscriptionDao).findByUserId(userId);
+    verify(subscriptionDao).upsert(any(Subscription.class));
+  }
+
+  @Test
+  void upsertUpdatesRowInsertedByConcurrentUpsert() {
+    Integer userId = 1;
+    CreateSubscriptionDto createSubscriptionDto = CreateSubscriptionDto.builder()
+        .userId(userId)
+        .name("race")
+        .provider("google")
+        .expirationDate(Instant.now().plus(30, ChronoUnit.DAYS))
+        .build();
+    Subscription newSubscription = Subscription.builder()
+        .userId(userId)
+        .name("race")
+        .provider(Provider.GOOGLE)
+        .expirationDate(createSubscriptionDto.getExpirationDate())
+        .status(Status.ACTIVE)
+        .build();
+    Subscription winner = Subscription.builder()
+        .id(7)
+        .userId(userId)
+        .name("race")
+        .provider(Provider.GOOGLE)
+        .expirationDate(Instant.now())
+        .status(Status.CANCELED)
+        .build();
+    doReturn(new ValidationResult()).when(createSubscriptionValidator).validate(createSubscriptionDto);
+    when(subscriptionDao.findByUserId(userId)).thenReturn(List.of(), List.of(winner));
+    doReturn(newSubscription).when(createSubscriptionMapper).map(createSubscriptionDto);
+    when(subscriptionDao.upsert(newSubscription))
+        .thenThrow(new DuplicateKeyException("Unique constraint violated", null));
+    when(subscriptionDao.update(any(Subscription.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+    Subscription actualResult = service.upsert(createSubscriptionDto);
+
+    assertThat(actualResult.getId()).isEqualTo(7);
+    assertThat(actualResult.getStatus()).isEqualByComparingTo(Status.ACTIVE);
+    verify(subscriptionDao).update(winner);
+  }
+
+  @Test
+  void upsertRethrowsConflictWithRowOfAnotherProvider() {
+    Integer userId = 1;
+    CreateSubscriptionDto createSubscriptionDto = CreateSubscriptionDto.builder()
+        .userId(userId)
+        .name("race")
+        .provider("google")
+        .expirationDate(Instant.now().plus(30, ChronoUnit.DAYS))
+        .build();
+    Subscription newSubscription = getActiveSubscriptionForUserId(userId, "race");
+    Subscription otherProvider = Subscription.builder()
+        .id(7)
+        .userId(userId)
+        .name("race")
+        .provider(Provider.APPLE)
+        .expirationDate(Instant.now())
+        .status(Status.ACTIVE)
+        .build();
+    var conflict = new DuplicateKeyException("Unique constraint violated", null);
+    doReturn(new ValidationResult()).when(createSubscriptionValidator).validate(createSubscriptionDto);
+    when(subscriptionDao.findByUserId(userId)).thenReturn(List.of(), List.of(otherProvider));
+    doReturn(newSubscription).when(createSubscriptionMapper).map(createSubscriptionDto);
+    when(subscriptionDao.upsert(newSubscription)).thenThrow(conflict);
+
+    var actualException = assertThrows(DuplicateKeyException.class, () -> service.upsert(createSubscriptionDto));
+
+    assertThat(actualException).isSameAs(conflict);
+    verify(subscriptionDao, never()).update(any(Subscription.class));
+  }
+
+  @Test
+  void upsertSkipsLookupForKeyMissingFromFilter() {
+    Integer userId = 1;
+    CreateSubscriptionDto createSubscriptionDto = CreateSubscriptionDto.builder()
+        .userId(userId)
+        .name("new")
+        .provider("google")
+        .expirationDate(Instant.now().plus(30, ChronoUnit.DAYS))
+        .build();
+    Subscription newSubscription = getActiveSubscriptionForUserId(userId, "new");
+    SubscriptionKeyFilter keyFilter = SubscriptionKeyFilter.create(100, 0.01);
+    service.setKeyFilter(keyFilter);
+    doReturn(new ValidationResult()).when(createSubscriptionValidator).validate(createSubscriptionDto);
+    doReturn(newSubscription).when(createSubscriptionMapper).map(createSubscriptionDto);
+    when(subscriptionDao.upsert(any(Subscription.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+    Subscription actualResult = service.upsert(createSubscriptionDto);
+
+    assertThat(actualResult).isEqualTo(newSubscription);
+    verify(subscriptionDao, never()).findByUserId(userId);
+    assertThat(keyFilter.getSkippedLookups()).isEqualTo(1);
+    assertThat(keyFilter.mightContain(userId, "new")).isTrue();
+  }
+
   @Test
   void upsertThrowValidationException() {
     Error error = Error.of(100, "error");
@@ -0,0 +1,60 @@
+package com.dmdev.snapshot;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.exception.SnapshotCorruptedException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SubscriptionSnapshotFileTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void writeAndRead() {
+    Path path = directory.resolve("subscriptions.snapshot");
+    List<Subscription> subscriptions = List.of(
+        new Subscription(1, 10, "premium", Provider.GOOGLE, Instant.parse("2030-01-01T00:00:00.123456789Z"), Status.ACTIVE),
+        new Subscription(2, 11, "premium", Provider.APPLE, Instant.parse("2020-01-01T00:00:00Z"), Status.EXPIRED),
+        new Subscription(3, 10, "семья", Provider.APPLE, Instant.parse("2031-06-15T12:30:00Z"), Status.CANCELED));
+    Instant createdAt = Instant.ofEpochMilli(1_700_000_000_000L);
+
+    SubscriptionSnapshotFile.write(path, new SubscriptionSnapshot(42, createdAt, subscriptions));
+    SubscriptionSnapshot actualResult = SubscriptionSnapshotFile.read(path);
+
+    assertThat(actualResult.getFeedOffset()).isEqualTo(42);
+    assertThat(actualResult.getCreatedAt()).isEqualTo(createdAt);
+    assertThat(actualResult.getSubscriptions()).isEqualTo(subscriptions);
+  }
+
+  @Test
+  void writeAndReadEmpty() {
+    Path path = directory.resolve("empty.snapshot");
+
+    SubscriptionSnapshotFile.write(path, new SubscriptionSnapshot(0, Instant.EPOCH, List.of()));
+
+    assertThat(SubscriptionSnapshotFile.read(path).getSubscriptions()).isEmpty();
+  }
+
+  @Test
+  void readRejectsCorruptedBody() throws Exception {
+    Path path = directory.resolve("corrupted.snapshot");
+    SubscriptionSnapshotFile.write(path, new SubscriptionSnapshot(0, Instant.EPOCH, List.of(
+        new Subscription(1, 10, "premium", Provider.GOOGLE, Instant.EPOCH, Status.ACTIVE))));
+    try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+      file.seek(file.length() - 1);
+      file.write('X');
+    }
+
+    assertThrows(SnapshotCorruptedException.class, () -> SubscriptionSnapshotFile.read(path));
+  }
+}
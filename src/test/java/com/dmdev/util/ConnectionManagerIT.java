@@ -0,0 +1,111 @@
+package com.dmdev.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.dmdev.exception.DeadlineExceededException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class ConnectionManagerIT {
+
+  @Test
+  void closeReturnsConnectionToPool() throws SQLException {
+    Connection connection = ConnectionManager.get();
+    int idleCount = ConnectionManager.getIdleCount();
+
+    connection.close();
+
+    assertThat(ConnectionManager.getIdleCount()).isEqualTo(idleCount + 1);
+    assertThat(ConnectionManager.getOpenedCount()).isLessThanOrEqualTo(ConnectionManager.getPoolSize());
+  }
+
+  @Test
+  void closeResetsAutoCommit() throws SQLException {
+    try (Connection connection = ConnectionManager.get()) {
+      connection.setAutoCommit(false);
+    }
+
+    for (int i = 0; i < ConnectionManager.getIdleCount(); i++) {
+      try (Connection connection = ConnectionManager.get()) {
+        assertThat(connection.getAutoCommit()).isTrue();
+      }
+    }
+  }
+
+  @Test
+  void prefillIsBoundedByPoolSize() {
+    ConnectionManager.prefill(ConnectionManager.getPoolSize() + 5);
+
+    assertThat(ConnectionManager.getOpenedCount()).isEqualTo(ConnectionManager.getPoolSize());
+  }
+
+  @Test
+  void shrinkingPoolClosesIdleAndReleasedConnections() throws SQLException {
+    int poolSize = ConnectionManager.getPoolSize();
+    ConnectionManager.prefill(poolSize);
+    Connection first = ConnectionManager.get();
+    Connection second = ConnectionManager.get();
+    try {
+      ConnectionManager.setPoolSize(1);
+
+      assertThat(ConnectionManager.getOpenedCount()).isEqualTo(2);
+      first.close();
+      assertThat(first.isClosed()).isTrue();
+      second.close();
+      assertThat(ConnectionManager.getIdleCount()).isEqualTo(1);
+      assertThat(ConnectionManager.getOpenedCount()).isEqualTo(1);
+    } finally {
+      ConnectionManager.setPoolSize(poolSize);
+    }
+  }
+
+  @Test
+  void repeatedCloseReleasesOnceAndClosedConnectionIsRejected() throws SQLException {
+    Connection connection = ConnectionManager.get();
+    int idleCount = ConnectionManager.getIdleCount();
+    int openedCount = ConnectionManager.getOpenedCount();
+
+    connection.close();
+    connection.close();
+
+    assertThat(connection.isClosed()).isTrue();
+    assertThat(ConnectionManager.getIdleCount()).isEqualTo(idleCount + 1);
+    assertThat(ConnectionManager.getOpenedCount()).isEqualTo(openedCount);
+    assertThrows(SQLException.class, connection::createStatement);
+    try (Connection next = ConnectionManager.get()) {
+      assertThat(next.isClosed()).isFalse();
+      assertThat(connection.isClosed()).isTrue();
+    }
+  }
+
+  @Test
+  void connectionInUseWhenPoolIsClosedIsNotCountedTwice() throws SQLException {
+    Connection inUse = ConnectionManager.get();
+
+    ConnectionManager.closePool();
+    inUse.close();
+
+    assertThat(ConnectionManager.getOpenedCount()).isZero();
+    assertThat(ConnectionManager.getIdleCount()).isZero();
+    assertThat(inUse.isClosed()).isTrue();
+    try (Connection connection = ConnectionManager.get()) {
+      assertThat(connection.isValid(1)).isTrue();
+    }
+  }
+
+  @Test
+  void getGivesUpWhenPoolIsExhausted() throws SQLException {
+    int poolSize = ConnectionManager.getPoolSize();
+    ConnectionManager.setPoolSize(1);
+    try (Connection held = ConnectionManager.get()) {
+      assertThat(ConnectionManager.getOpenedCount()).isEqualTo(1);
+
+      assertThrows(DeadlineExceededException.class, () -> ConnectionManager.get(Duration.ofMillis(50)));
+    } finally {
+      ConnectionManager.setPoolSize(poolSize);
+    }
+  }
+}
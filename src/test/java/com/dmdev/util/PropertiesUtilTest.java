@@ -1,14 +1,34 @@
 package com.dmdev.util;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.MethodSource;
 
 class PropertiesUtilTest {
 
+  @TempDir
+  Path directory;
+
+  @AfterEach
+  void clearOverrides() {
+    System.clearProperty("config.file");
+    System.clearProperty("test.tunable");
+    PropertiesUtil.reload();
+  }
 
   @ParameterizedTest
   @MethodSource("getPropertyArguments")
@@ -27,4 +47,60 @@ class PropertiesUtilTest {
     );
   }
 
-}
\ No newline at end of file
+  @Test
+  void typedValues() {
+    assertThat(PropertiesUtil.getInt("db.pool.size", 1)).isEqualTo(10);
+    assertThat(PropertiesUtil.getInt("test.tunable", 7)).isEqualTo(7);
+    System.setProperty("test.tunable", "not a number");
+
+    var exception = assertThrows(IllegalArgumentException.class, () -> PropertiesUtil.getInt("test.tunable", 7));
+    assertThat(exception.getMessage()).contains("test.tunable");
+  }
+
+  @ParameterizedTest
+  @CsvSource({"500ms, PT0.5S", "30s, PT30S", "5 m, PT5M", "1h, PT1H", "7d, PT168H", "PT2M30S, PT2M30S"})
+  void parseDuration(String value, Duration expected) {
+    assertThat(PropertiesUtil.parseDuration(value)).isEqualTo(expected);
+  }
+
+  @Test
+  void parseDurationRequiresUnit() {
+    assertThrows(IllegalArgumentException.class, () -> PropertiesUtil.parseDuration("30"));
+  }
+
+  @Test
+  void environmentName() {
+    assertThat(PropertiesUtil.toEnvironmentName("db.statement-cache.size")).isEqualTo("DB_STATEMENT_CACHE_SIZE");
+  }
+
+  @Test
+  void externalFileOverridesClasspathAndSystemPropertyOverridesFile() throws IOException {
+    Path file = directory.resolve("external.properties");
+    Files.writeString(file, "db.user=external\ntest.tunable=from-file\n");
+    System.setProperty("config.file", file.toString());
+    System.setProperty("test.tunable", "from-system-property");
+
+    PropertiesUtil.reload();
+
+    assertThat(PropertiesUtil.get("db.user")).isEqualTo("external");
+    assertThat(PropertiesUtil.get("db.url")).isEqualTo("jdbc:h2:mem:test;DB_CLOSE_DELAY=-1");
+    assertThat(PropertiesUtil.get("test.tunable")).isEqualTo("from-system-property");
+  }
+
+  @Test
+  void reloadRunsListenersOfChangedKeys() throws IOException {
+    Path file = directory.resolve("external.properties");
+    Files.writeString(file, "test.reloaded=1\n");
+    System.setProperty("config.file", file.toString());
+    PropertiesUtil.reload();
+    AtomicInteger applied = new AtomicInteger();
+    PropertiesUtil.onChange("test.reloaded", () -> applied.set(PropertiesUtil.getInt("test.reloaded", 0)));
+
+    PropertiesUtil.reload();
+    assertThat(applied).hasValue(0);
+    Files.writeString(file, "test.reloaded=5\n");
+    PropertiesUtil.reload();
+
+    assertThat(applied).hasValue(5);
+  }
+}
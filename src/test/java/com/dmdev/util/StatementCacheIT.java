@@ -0,0 +1,149 @@
+package com.dmdev.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class StatementCacheIT {
+
+  private final AtomicInteger capacity = new AtomicInteger(2);
+  private final StatementCacheStats stats = new StatementCacheStats();
+  private Connection connection;
+  private StatementCache cache;
+
+  @BeforeEach
+  void init() throws SQLException {
+    connection = DriverManager.getConnection("jdbc:h2:mem:statement-cache");
+    cache = new StatementCache(connection, capacity::get, stats);
+  }
+
+  @AfterEach
+  void close() throws SQLException {
+    connection.close();
+  }
+
+  @Test
+  void closedStatementIsReusedWithClearedParameters() throws SQLException {
+    PreparedStatement first = prepare("SELECT CAST(? AS INT)");
+    first.setInt(1, 42);
+    first.executeQuery();
+    first.close();
+
+    PreparedStatement second = prepare("SELECT CAST(? AS INT)");
+
+    assertThat(second.unwrap(PreparedStatement.class)).isSameAs(first.unwrap(PreparedStatement.class));
+    assertThat(second.isClosed()).isFalse();
+    assertThrows(SQLException.class, second::executeQuery);
+    assertThat(stats.getHits()).isEqualTo(1);
+    assertThat(stats.getMisses()).isEqualTo(1);
+  }
+
+  @Test
+  void abandonedBatchIsNotExecutedByNextUser() throws SQLException {
+    try (var statement = connection.createStatement()) {
+      statement.execute("CREATE TABLE item (id INT PRIMARY KEY)");
+      statement.execute("INSERT INTO item VALUES (1), (2), (3)");
+    }
+    PreparedStatement abandoned = prepare("DELETE FROM item WHERE id = ?");
+    abandoned.setInt(1, 1);
+    abandoned.addBatch();
+    abandoned.setInt(1, 2);
+    abandoned.addBatch();
+    abandoned.close();
+
+    PreparedStatement reused = prepare("DELETE FROM item WHERE id = ?");
+    reused.setInt(1, 3);
+    reused.addBatch();
+    int[] updated = reused.executeBatch();
+    reused.close();
+
+    assertThat(updated).containsExactly(1);
+    try (var statement = connection.createStatement();
+         var resultSet = statement.executeQuery("SELECT id FROM item ORDER BY id")) {
+      assertThat(resultSet.next()).isTrue();
+      assertThat(resultSet.getInt(1)).isEqualTo(1);
+      assertThat(resultSet.next()).isTrue();
+      assertThat(resultSet.getInt(1)).isEqualTo(2);
+      assertThat(resultSet.next()).isFalse();
+    }
+  }
+
+  @Test
+  void queryTimeoutAndMaxRowsAreRestoredOnRelease() throws SQLException {
+    PreparedStatement first = prepare("SELECT 1");
+    first.setQueryTimeout(7);
+    first.setMaxRows(3);
+    first.close();
+
+    PreparedStatement second = prepare("SELECT 1");
+
+    assertThat(second.getQueryTimeout()).isZero();
+    assertThat(second.getMaxRows()).isZero();
+  }
+
+  @Test
+  void evictionClosesLeastRecentlyUsedStatement() throws SQLException {
+    PreparedStatement first = prepare("SELECT 1");
+    first.close();
+    PreparedStatement second = prepare("SELECT 2");
+    second.close();
+    prepare("SELECT 1").close();
+
+    prepare("SELECT 3").close();
+
+    assertThat(stats.getEvictions()).isEqualTo(1);
+    assertThat(first.unwrap(PreparedStatement.class).isClosed()).isFalse();
+    assertThat(second.unwrap(PreparedStatement.class).isClosed()).isTrue();
+  }
+
+  @Test
+  void statementEvictedWhileInUseIsClosedOnRelease() throws SQLException {
+    PreparedStatement inUse = prepare("SELECT 1");
+    prepare("SELECT 2").close();
+    prepare("SELECT 3").close();
+    PreparedStatement delegate = inUse.unwrap(PreparedStatement.class);
+    assertThat(delegate.isClosed()).isFalse();
+
+    inUse.close();
+
+    assertThat(delegate.isClosed()).isTrue();
+  }
+
+  @Test
+  void statementPreparedAgainWhileInUseIsNotCached() throws SQLException {
+    PreparedStatement inUse = prepare("SELECT 1");
+    PreparedStatement duplicate = prepare("SELECT 1");
+
+    duplicate.close();
+
+    assertThat(duplicate.unwrap(PreparedStatement.class)).isNotSameAs(inUse.unwrap(PreparedStatement.class));
+    assertThat(duplicate.isClosed()).isTrue();
+    assertThat(inUse.isClosed()).isFalse();
+  }
+
+  @Test
+  void zeroCapacityClosesCachedStatements() throws SQLException {
+    PreparedStatement cached = prepare("SELECT 1");
+    cached.close();
+    capacity.set(0);
+
+    PreparedStatement uncached = prepare("SELECT 1");
+    uncached.close();
+
+    assertThat(cached.unwrap(PreparedStatement.class).isClosed()).isTrue();
+    assertThat(uncached.isClosed()).isTrue();
+  }
+
+  private PreparedStatement prepare(String sql) throws SQLException {
+    return cache.prepare(sql, Statement.NO_GENERATED_KEYS);
+  }
+}
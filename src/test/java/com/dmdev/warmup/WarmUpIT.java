@@ -0,0 +1,53 @@
+package com.dmdev.warmup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.integration.IntegrationTestBase;
+import com.dmdev.mapper.CreateSubscriptionMapper;
+import com.dmdev.util.ConnectionManager;
+import com.dmdev.validator.CreateSubscriptionValidator;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class WarmUpIT extends IntegrationTestBase {
+
+  // fragments the statements are built from, and the PostgreSQL variant of a statement prepared on H2
+  private static final Set<String> NOT_PREPARED_SQL = Set.of(
+      "GET_EXPIRATIONS_SQL", "GET_ALL_ARCHIVED_SQL", "GET_BY_PROVIDER_ORDERED_BY_KEY_POSTGRESQL_SQL");
+
+  private final SubscriptionDao subscriptionDao = SubscriptionDao.getInstance();
+
+  @Test
+  void run() {
+    WarmUp warmUp = new WarmUp(
+        subscriptionDao,
+        CreateSubscriptionMapper.getInstance(),
+        CreateSubscriptionValidator.getInstance(),
+        WarmUpConfig.builder()
+            .minConnections(3)
+            .iterations(50)
+            .writes(true)
+            .build()
+    );
+    assertThat(warmUp.isReady()).isFalse();
+
+    WarmUpReport actualResult = warmUp.run();
+
+    assertThat(warmUp.isReady()).isTrue();
+    assertThat(actualResult.getIterations()).isEqualTo(50);
+    assertThat(actualResult.getStatementsPrepared()).isEqualTo(3 * statementCount());
+    assertThat(ConnectionManager.getOpenedCount()).isGreaterThanOrEqualTo(3);
+    assertThat(subscriptionDao.findByUserId(-1)).isEmpty();
+    assertThat(warmUp.run()).isSameAs(actualResult);
+  }
+
+  private static int statementCount() {
+    return (int) Arrays.stream(SubscriptionDao.class.getDeclaredFields())
+        .filter(field -> Modifier.isStatic(field.getModifiers()) && field.getName().endsWith("_SQL"))
+        .filter(field -> !NOT_PREPARED_SQL.contains(field.getName()))
+        .count();
+  }
+}